@@ -0,0 +1,123 @@
+package bench;
+
+import java.util.*;
+
+import sim.Game;
+import sim.Player;
+import sim.Score;
+
+/*
+ * Compares the original map-based constraint checker with the List<Game> entry point and the primitive one.
+ *
+ * Usage: java -cp .:org.json.jar bench.ConstraintBenchmark [TEAMS ...]
+ *
+ */
+public class ConstraintBenchmark {
+
+	public static void main(String[] args) {
+		int[] numTeamsList = args.length == 0 ? new int[] {10, 100, 1000} : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+		System.out.println("Teams\tMap-based (ns/op)\tList<Game> (ns/op)\tint[] (ns/op)\tSpeedup");
+		for(int numTeams : numTeamsList) {
+			Random random = new Random(numTeams);
+			List<Game> originalPlayerGames = generatePlayerGames(numTeams, random);
+			List<Game> reallocatedPlayerGames = reallocatePlayerGames(originalPlayerGames, random);
+
+			int numGames = originalPlayerGames.size();
+			int[] originalPlayerGoals = new int[numGames];
+			int[] reallocatedPlayerGoals = new int[numGames];
+			int[] opponentGoals = new int[numGames];
+			for(int i = 0; i < numGames; i++) {
+				originalPlayerGoals[i] = originalPlayerGames.get(i).getNumPlayerGoals();
+				reallocatedPlayerGoals[i] = reallocatedPlayerGames.get(i).getNumPlayerGoals();
+				opponentGoals[i] = originalPlayerGames.get(i).getNumOpponentGoals();
+			}
+
+			boolean expected = checkConstraintsSatisfiedWithMaps(originalPlayerGames, reallocatedPlayerGames);
+			if(expected != Player.checkConstraintsSatisfied(originalPlayerGames, reallocatedPlayerGames) ||
+					expected != Player.checkConstraintsSatisfied(originalPlayerGoals, reallocatedPlayerGoals, opponentGoals))
+				throw new IllegalStateException("Constraint check mismatch in a league of " + numTeams + " teams!");
+
+			double mapNanos = RankingBenchmark.measure(() -> checkConstraintsSatisfiedWithMaps(originalPlayerGames, reallocatedPlayerGames));
+			double listNanos = RankingBenchmark.measure(() -> Player.checkConstraintsSatisfied(originalPlayerGames, reallocatedPlayerGames));
+			double arrayNanos = RankingBenchmark.measure(() -> Player.checkConstraintsSatisfied(originalPlayerGoals, reallocatedPlayerGoals, opponentGoals));
+			System.out.println(numTeams + "\t" + String.format("%.1f", mapNanos) + "\t\t\t" +
+					String.format("%.1f", listNanos) + "\t\t\t" + String.format("%.1f", arrayNanos) + "\t\t" +
+					String.format("%.1fx", mapNanos / arrayNanos));
+		}
+	}
+
+	static List<Game> generatePlayerGames(int numTeams, Random random) {
+		List<Game> playerGames = new ArrayList<>();
+		for(int opponentID = 2; opponentID <= numTeams; opponentID++)
+			playerGames.add(new Game(opponentID, new Score(random.nextInt(Game.getMaxGoalThreshold() + 1), random.nextInt(Game.getMaxGoalThreshold() + 1))));
+		return playerGames;
+	}
+
+	// Moves single goals from winning games to losing games, so the reallocation is valid and every game gets checked
+	static List<Game> reallocatePlayerGames(List<Game> playerGames, Random random) {
+		List<Game> reallocatedPlayerGames = new ArrayList<>();
+		for(Game playerGame : playerGames)
+			reallocatedPlayerGames.add(playerGame.cloneGame());
+
+		List<Game> winningGames = new ArrayList<>(), losingGames = new ArrayList<>();
+		for(Game reallocatedPlayerGame : reallocatedPlayerGames) {
+			if(Player.hasWonGame(reallocatedPlayerGame) && reallocatedPlayerGame.getNumPlayerGoals() >= 2)
+				winningGames.add(reallocatedPlayerGame);
+			else if(Player.hasLostGame(reallocatedPlayerGame) && !reallocatedPlayerGame.maxPlayerGoalsReached())
+				losingGames.add(reallocatedPlayerGame);
+		}
+		Collections.shuffle(losingGames, random);
+		for(int i = 0; i < Math.min(winningGames.size(), losingGames.size()); i++) {
+			winningGames.get(i).setNumPlayerGoals(winningGames.get(i).getNumPlayerGoals() - 1);
+			losingGames.get(i).setNumPlayerGoals(losingGames.get(i).getNumPlayerGoals() + 1);
+		}
+		return reallocatedPlayerGames;
+	}
+
+	// Original map-based implementation of Player.checkConstraintsSatisfied, kept as the reference
+	static boolean checkConstraintsSatisfiedWithMaps(List<Game> originalPlayerGames, List<Game> reallocatedPlayerGames) {
+
+		Map<Integer, Game> originalPlayerGamesMap = new HashMap<>();
+		for(Game originalPlayerGame : originalPlayerGames)
+			originalPlayerGamesMap.put(originalPlayerGame.getID(), originalPlayerGame);
+		Map<Integer, Game> reallocatedPlayerGamesMap = new HashMap<>();
+		for(Game reallocatedPlayerGame : reallocatedPlayerGames)
+			reallocatedPlayerGamesMap.put(reallocatedPlayerGame.getID(), reallocatedPlayerGame);
+
+		int totalNumOriginalPlayerGoals = 0, totalNumReallocatedPlayerGoals = 0;
+		for(Game originalPlayerGame : originalPlayerGames) {
+			if(!reallocatedPlayerGamesMap.containsKey(originalPlayerGame.getID()))
+				continue;
+			Game reallocatedPlayerGame = reallocatedPlayerGamesMap.get(originalPlayerGame.getID());
+			boolean isOriginalWinningGame = Player.hasWonGame(originalPlayerGame);
+			boolean isOriginalLosingGame = Player.hasLostGame(originalPlayerGame);
+			boolean isOriginalDrawnGame = Player.hasDrawnGame(originalPlayerGame);
+
+			if(reallocatedPlayerGame.getNumPlayerGoals() < 0 || reallocatedPlayerGame.getNumPlayerGoals() > Game.getMaxGoalThreshold())
+				return false;
+
+			if(!originalPlayerGame.getNumOpponentGoals().equals(reallocatedPlayerGame.getNumOpponentGoals()))
+				return false;
+
+			boolean numPlayerGoalsIncreased = reallocatedPlayerGame.getNumPlayerGoals() > originalPlayerGame.getNumPlayerGoals();
+			if(isOriginalWinningGame && numPlayerGoalsIncreased)
+				return false;
+
+			int halfNumPlayerGoals = (int) Math.ceil(((double) originalPlayerGame.getNumPlayerGoals()) / 2);
+			boolean numReallocatedPlayerGoalsLessThanHalf =
+					reallocatedPlayerGame.getNumPlayerGoals() < (originalPlayerGame.getNumPlayerGoals() - halfNumPlayerGoals);
+			if((isOriginalWinningGame || isOriginalDrawnGame) && numReallocatedPlayerGoalsLessThanHalf)
+				return false;
+
+			totalNumOriginalPlayerGoals += originalPlayerGame.getNumPlayerGoals();
+			totalNumReallocatedPlayerGoals += reallocatedPlayerGame.getNumPlayerGoals();
+
+			boolean numPlayerGoalsDecreased = reallocatedPlayerGame.getNumPlayerGoals() < originalPlayerGame.getNumPlayerGoals();
+			if(isOriginalLosingGame && numPlayerGoalsDecreased)
+				return false;
+		}
+
+		return totalNumOriginalPlayerGoals == totalNumReallocatedPlayerGoals;
+	}
+}
@@ -0,0 +1,126 @@
+package bench;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import sim.PlayerPoints;
+import sim.RoundRanker;
+
+/*
+ * Compares the original sort-based round ranking with the counting-sort RoundRanker.
+ *
+ * Usage: java -cp .:org.json.jar bench.RankingBenchmark [TEAMS ...]
+ *
+ */
+public class RankingBenchmark {
+
+	private static final int WARMUP_SECONDS = 2;
+	private static final int MEASURE_SECONDS = 3;
+
+	public static void main(String[] args) {
+		int[] numTeamsList = args.length == 0 ? new int[] {10, 100, 1000} : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+		System.out.println("Teams\tSort-based (ns/op)\tRoundRanker (ns/op)\tSpeedup");
+		for(int numTeams : numTeamsList) {
+			int[] points = generateRoundPoints(numTeams, new Random(numTeams));
+			Map<Integer, PlayerPoints> roundPointsMap = new HashMap<>();
+			for(int teamID = 1; teamID <= numTeams; teamID++)
+				roundPointsMap.put(teamID, new PlayerPoints(points[teamID]));
+
+			RoundRanker roundRanker = RoundRanker.forNumTeams(numTeams);
+			double[] ranks = new double[numTeams + 1];
+			roundRanker.computeRanks(points, ranks, 1, numTeams + 1);
+			Map<Integer, Double> expectedRankingsMap = computeSortedRoundRankings(roundPointsMap);
+			for(int teamID = 1; teamID <= numTeams; teamID++)
+				if(Double.compare(expectedRankingsMap.get(teamID), ranks[teamID]) != 0)
+					throw new IllegalStateException("Rank mismatch for team " + teamID + " in a league of " + numTeams + " teams!");
+
+			double sortedNanos = measure(() -> computeSortedRoundRankings(roundPointsMap));
+			double rankerNanos = measure(() -> roundRanker.computeRanks(points, ranks, 1, numTeams + 1));
+			System.out.println(numTeams + "\t" + String.format("%.1f", sortedNanos) + "\t\t\t" +
+					String.format("%.1f", rankerNanos) + "\t\t\t" + String.format("%.1fx", sortedNanos / rankerNanos));
+		}
+	}
+
+	static int[] generateRoundPoints(int numTeams, Random random) {
+		int[] points = new int[numTeams + 1];
+		for(int i = 1; i <= numTeams; i++)
+			for(int j = i + 1; j <= numTeams; j++) {
+				int outcome = random.nextInt(3);
+				if(outcome == 0)
+					points[i] += PlayerPoints.getWinPointValue();
+				else if(outcome == 1)
+					points[j] += PlayerPoints.getWinPointValue();
+				else {
+					points[i] += PlayerPoints.getDrawPointValue();
+					points[j] += PlayerPoints.getDrawPointValue();
+				}
+			}
+		return points;
+	}
+
+	static double measure(Runnable operation) {
+		long warmupEnd = System.nanoTime() + WARMUP_SECONDS * 1_000_000_000L;
+		while(System.nanoTime() < warmupEnd)
+			operation.run();
+
+		long numOperations = 0;
+		long start = System.nanoTime();
+		long measureEnd = start + MEASURE_SECONDS * 1_000_000_000L;
+		long now;
+		do {
+			for(int i = 0; i < 100; i++)
+				operation.run();
+			numOperations += 100;
+			now = System.nanoTime();
+		} while(now < measureEnd);
+		return ((double) (now - start)) / numOperations;
+	}
+
+	// Original sort-based implementation of LeagueStandings.computeRoundRankings, kept as the reference
+	static Map<Integer, Double> computeSortedRoundRankings(Map<Integer, PlayerPoints> roundPointsMap) {
+		Map<Integer, Double> rankingsMap = new HashMap<>();
+		
+		Map<Integer, PlayerPoints> rankedPointsMap = roundPointsMap.entrySet()
+				  .stream()
+				  .sorted(Map.Entry.comparingByValue())
+				  .collect(Collectors.toMap(
+				    Map.Entry::getKey, 
+				    Map.Entry::getValue,
+				    (oldPoints, newPoints) -> oldPoints, LinkedHashMap::new));
+						
+		List<Integer> rankedTeamIDs = new ArrayList<>(rankedPointsMap.keySet());
+		Collections.reverse(rankedTeamIDs);
+				
+		int indexOfFirstTiedElement = 0;
+		for(int i = 0; i < rankedTeamIDs.size() - 1; i++) {
+			int currTeamID = rankedTeamIDs.get(i);
+			int currTeamNumPoints = rankedPointsMap.get(currTeamID).getTotalPoints();
+			int nextTeamID = rankedTeamIDs.get(i + 1);
+			int nextTeamNumPoints = rankedPointsMap.get(nextTeamID).getTotalPoints();
+			
+			if(currTeamNumPoints == nextTeamNumPoints)
+				continue;
+			else if(indexOfFirstTiedElement != i) {
+				double averageRank = ((double) (indexOfFirstTiedElement + i)) / 2 + 1;
+				for(int j = indexOfFirstTiedElement; j <= i; j++)
+					rankingsMap.put(rankedTeamIDs.get(j), averageRank);
+				indexOfFirstTiedElement = i + 1;
+			}
+			else {
+				rankingsMap.put(currTeamID, (double) (i + 1));
+				indexOfFirstTiedElement = i + 1;
+			}
+		}
+		
+		if(indexOfFirstTiedElement != rankedTeamIDs.size() - 1) {
+			double averageRank = ((double) (indexOfFirstTiedElement + rankedTeamIDs.size() - 1)) / 2 + 1;
+			for(int i = indexOfFirstTiedElement; i < rankedTeamIDs.size(); i++)
+				rankingsMap.put(rankedTeamIDs.get(i), averageRank);
+		}
+		else
+			rankingsMap.put(rankedTeamIDs.get(rankedTeamIDs.size() - 1), (double) rankedTeamIDs.size());
+
+		return rankingsMap;
+	}
+}
@@ -0,0 +1,364 @@
+package bench;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.function.Supplier;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import sim.GUIStateWriter;
+import sim.Game;
+import sim.GameHistory;
+import sim.LeagueStandings;
+import sim.LeagueState;
+import sim.Log;
+import sim.Player;
+import sim.PlayerLoader;
+import sim.PlayerPoints;
+import sim.RankStatistics;
+import sim.Score;
+import sim.SimPrinter;
+import sim.SimulationConfig;
+
+/*
+ * Measures the simulator's per-round hot paths and the reallocation of each shipped player on fixed-seed leagues.
+ *
+ * Each fixture is a league of some number of teams with a history of some number of reallocation rounds, where
+ * every team moves goals from its wins to its losses each round. Every benchmark is timed over warm-up and
+ * measured iterations, and its average time per operation is reported with a 95% confidence interval. Results
+ * are written as JSON in the layout of JMH's average-time mode, so runs can be compared release over release.
+ *
+ * Usage: java -cp .:org.json.jar:jama.jar bench.SimulatorBenchmark [--teams N ...] [--depths N ...] [--players NAME ...]
+ *                 [--filter TEXT] [--warmup-ms MS] [--measure-ms MS] [--iterations N] [--output FILE]
+ *
+ */
+public class SimulatorBenchmark {
+
+	private static final int SEED = 4444;
+
+	// Fixtures whose history would hold more games than this are skipped
+	private static final long MAX_FIXTURE_GAMES = 20_000_000L;
+
+	// Target duration of a batch of operations between two clock reads
+	private static final long BATCH_NANOS = 100_000L;
+
+	// Results are stored here so the JIT cannot eliminate the measured operations
+	static volatile Object sink;
+
+	private int[] numTeamsList = {10, 100, 1000};
+	private int[] depths = {1, 10, 100, 1000};
+	private List<String> playerNames = new ArrayList<>(Arrays.asList("random", "g1", "g2", "g3", "g4", "g5"));
+	private String filter = null;
+	private long warmupMillis = 1000, measureMillis = 1000;
+	private int numIterations = 5;
+	private String outputPath = "bench-results.json";
+
+	public static void main(String[] args) throws IOException, JSONException {
+		SimulatorBenchmark benchmark = new SimulatorBenchmark();
+		benchmark.parseArguments(args);
+		benchmark.run();
+	}
+
+	private void parseArguments(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("--teams"))
+				numTeamsList = readIntegers(args, i, "teams");
+			else if(args[i].equals("--depths"))
+				depths = readIntegers(args, i, "depths");
+			else if(args[i].equals("--players")) {
+				playerNames.clear();
+				while(i + 1 < args.length && !args[i + 1].startsWith("--"))
+					playerNames.add(args[++i]);
+				continue;
+			}
+			else if(args[i].equals("--filter"))
+				filter = readValue(args, i, "filter");
+			else if(args[i].equals("--warmup-ms"))
+				warmupMillis = Long.parseLong(readValue(args, i, "warm-up time"));
+			else if(args[i].equals("--measure-ms"))
+				measureMillis = Long.parseLong(readValue(args, i, "measurement time"));
+			else if(args[i].equals("--iterations"))
+				numIterations = Integer.parseInt(readValue(args, i, "number of iterations"));
+			else if(args[i].equals("--output"))
+				outputPath = readValue(args, i, "output path");
+			else
+				throw new IllegalArgumentException("Unknown argument \"" + args[i] + "\"!");
+
+			while(i + 1 < args.length && !args[i + 1].startsWith("--"))
+				i++;
+		}
+		if(numIterations < 1 || measureMillis < 1)
+			throw new IllegalArgumentException("At least 1 iteration of at least 1 ms is required!");
+		if(Arrays.stream(numTeamsList).anyMatch(numTeams -> numTeams < 2) || Arrays.stream(depths).anyMatch(depth -> depth < 1))
+			throw new IllegalArgumentException("Leagues need at least 2 teams and 1 round!");
+	}
+
+	private static int[] readIntegers(String[] args, int i, String name) {
+		List<Integer> values = new ArrayList<>();
+		while(i + 1 < args.length && !args[i + 1].startsWith("--"))
+			values.add(Integer.parseInt(args[++i]));
+		if(values.isEmpty())
+			throw new IllegalArgumentException("The " + name + " are missing!");
+		return values.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private static String readValue(String[] args, int i, String name) {
+		if(i + 1 == args.length || args[i + 1].startsWith("--"))
+			throw new IllegalArgumentException("The " + name + " is missing!");
+		return args[i + 1];
+	}
+
+	private void run() throws IOException, JSONException {
+		PlayerLoader playerLoader = new PlayerLoader(new SimulationConfig().getSourcePath());
+		Log log = new Log();
+		playerLoader.compilePlayers(playerNames, log);
+		Map<String, IOException> loadFailuresMap = new HashMap<>();
+
+		JSONArray results = new JSONArray();
+		System.out.println("Benchmark\t\t\tTeams\tDepth\tScore (ns/op)\tError (ns/op)");
+		for(int numTeams : numTeamsList) {
+			for(int d = 0; d < depths.length; d++) {
+				int depth = depths[d];
+				if((long) numTeams * numTeams * depth > MAX_FIXTURE_GAMES) {
+					System.out.println("Skipping the league of " + numTeams + " teams with " + depth + " rounds, which is too large.");
+					continue;
+				}
+				Fixture fixture = new Fixture(numTeams, depth);
+
+				// Benchmarks that do not depend on the history are only run at the first depth
+				if(d == 0) {
+					LeagueStandings standings = new LeagueStandings(numTeams);
+					run(results, "computeRoundRankings", fixture, null, () -> () -> standings.computeRoundRankings(fixture.roundPointsMap));
+					run(results, "computeAverageRankings", fixture, null, () -> () -> standings.computeAverageRankings(fixture.roundRankingsMap));
+					run(results, "checkConstraintsSatisfied", fixture, null, () -> {
+						List<Game> originalPlayerGames = fixture.roundState.getTeamGames(1);
+						List<Game> reallocatedPlayerGames = ConstraintBenchmark.reallocatePlayerGames(originalPlayerGames, new Random(SEED));
+						return () -> Player.checkConstraintsSatisfied(originalPlayerGames, reallocatedPlayerGames);
+					});
+					run(results, "writeGUIState", fixture, null, () -> {
+						GUIStateWriter guiStateWriter = new GUIStateWriter(fixture.teamNames, depth, 15, true);
+						guiStateWriter.addRound(fixture.roundState);
+						return () -> guiStateWriter.write(depth, fixture.roundState, fixture.roundPointsMap,
+								fixture.roundCumulativePointsMap, fixture.roundRankingsMap, fixture.roundAverageRankingsMap);
+					});
+				}
+
+				run(results, "snapshot", fixture, null, () -> fixture.gameHistory::snapshot);
+				for(String playerName : playerNames) {
+					run(results, "reallocate", fixture, playerName, () -> {
+						// Players that cannot be compiled are not compiled again for every fixture
+						if(loadFailuresMap.containsKey(playerName))
+							throw loadFailuresMap.get(playerName);
+						try {
+							Player player = playerLoader.loadPlayer(playerName, 1, depth + 1, SEED, new SimPrinter(false), log);
+							return new ReallocationOperation(player, depth + 1, fixture.gameHistory.snapshot(), fixture.roundState);
+						} catch(IOException e) {
+							loadFailuresMap.put(playerName, e);
+							throw e;
+						}
+					});
+				}
+			}
+		}
+
+		try(Writer writer = new FileWriter(outputPath)) {
+			writer.write(results.toString(2));
+		}
+		System.out.println("Results written to \"" + outputPath + "\".");
+	}
+
+	/*
+	 * Measures the operation built by the setup, and adds its result, or the reason it could not be measured, to the results
+	 */
+	private void run(JSONArray results, String name, Fixture fixture, String playerName, OperationSetup setup) throws JSONException {
+		String label = playerName == null ? name : name + "(" + playerName + ")";
+		if(filter != null && !label.contains(filter))
+			return;
+
+		JSONObject params = new JSONObject();
+		params.put("teams", String.valueOf(fixture.numTeams));
+		params.put("depth", String.valueOf(fixture.depth));
+		if(playerName != null)
+			params.put("player", playerName);
+
+		JSONObject result = new JSONObject();
+		result.put("benchmark", SimulatorBenchmark.class.getName() + "." + name);
+		result.put("mode", "avgt");
+		result.put("threads", 1);
+		result.put("forks", 0);
+		result.put("warmupTime", warmupMillis + " ms");
+		result.put("measurementIterations", numIterations);
+		result.put("measurementTime", measureMillis + " ms");
+		result.put("params", params);
+
+		String tabs = label.length() < 16 ? "\t\t\t" : label.length() < 24 ? "\t\t" : "\t";
+		try {
+			Supplier<?> operation = setup.build();
+			double[] scores = measure(operation);
+			RankStatistics statistics = new RankStatistics();
+			JSONArray rawData = new JSONArray();
+			for(double score : scores) {
+				statistics.addRank(score);
+				rawData.put(score);
+			}
+
+			JSONObject primaryMetric = new JSONObject();
+			primaryMetric.put("score", statistics.getMean());
+			primaryMetric.put("scoreError", statistics.getConfidenceIntervalHalfWidth());
+			primaryMetric.put("scoreConfidence", new JSONArray().put(statistics.getConfidenceIntervalLowerBound()).put(statistics.getConfidenceIntervalUpperBound()));
+			primaryMetric.put("scoreUnit", "ns/op");
+			primaryMetric.put("rawData", new JSONArray().put(rawData));
+			result.put("primaryMetric", primaryMetric);
+
+			// Players that throw keep their games in the simulator, so their failed calls are measured as well
+			if(operation instanceof ReallocationOperation && ((ReallocationOperation) operation).firstFailure != null) {
+				ReallocationOperation reallocationOperation = (ReallocationOperation) operation;
+				result.put("failedCalls", reallocationOperation.numFailedCalls);
+				result.put("calls", reallocationOperation.numCalls);
+				result.put("firstFailure", reallocationOperation.firstFailure.toString());
+			}
+			System.out.println(label + tabs + fixture.numTeams + "\t" + fixture.depth + "\t" +
+					String.format("%.1f", statistics.getMean()) + "\t\t" + String.format("%.1f", statistics.getConfidenceIntervalHalfWidth()));
+		} catch(Exception | LinkageError e) {
+			result.put("error", e.toString());
+			System.out.println(label + tabs + fixture.numTeams + "\t" + fixture.depth + "\tfailed: " + e);
+		}
+		results.put(result);
+	}
+
+	/*
+	 * Average time per operation in each measured iteration, in nanoseconds
+	 */
+	private double[] measure(Supplier<?> operation) {
+		// Operations are run in batches long enough for the clock reads not to matter, sized during the warm-up
+		int batchSize = 1;
+		long warmupEnd = System.nanoTime() + warmupMillis * 1_000_000L;
+		do {
+			long batchStart = System.nanoTime();
+			for(int i = 0; i < batchSize; i++)
+				sink = operation.get();
+			if(System.nanoTime() - batchStart < BATCH_NANOS && batchSize < (1 << 20))
+				batchSize *= 2;
+		} while(System.nanoTime() < warmupEnd);
+
+		double[] scores = new double[numIterations];
+		for(int iteration = 0; iteration < numIterations; iteration++) {
+			long numOperations = 0;
+			long start = System.nanoTime();
+			long measureEnd = start + measureMillis * 1_000_000L;
+			long now;
+			do {
+				for(int i = 0; i < batchSize; i++)
+					sink = operation.get();
+				numOperations += batchSize;
+				now = System.nanoTime();
+			} while(now < measureEnd);
+			scores[iteration] = ((double) (now - start)) / numOperations;
+		}
+		return scores;
+	}
+
+	private interface OperationSetup {
+		Supplier<?> build() throws Exception;
+	}
+
+	/*
+	 * Reallocation of the first team for the round after the history, with the games passed as the simulator passes them,
+	 * rebuilt from the previous round for every call
+	 */
+	private static class ReallocationOperation implements Supplier<Object> {
+
+		private final Player player;
+		private final int round;
+		private final GameHistory gameHistory;
+		private final LeagueState previousRoundState;
+		private long numCalls = 0, numFailedCalls = 0;
+		private RuntimeException firstFailure;
+
+		private ReallocationOperation(Player player, int round, GameHistory gameHistory, LeagueState previousRoundState) {
+			this.player = player;
+			this.round = round;
+			this.gameHistory = gameHistory;
+			this.previousRoundState = previousRoundState;
+		}
+
+		@Override
+		public Object get() {
+			numCalls++;
+			Map<Integer, List<Game>> opponentGamesMap = new HashMap<>();
+			for(int teamID = 2; teamID <= previousRoundState.getNumTeams(); teamID++)
+				opponentGamesMap.put(teamID, previousRoundState.getTeamGames(teamID));
+			try {
+				return player.reallocate(round, gameHistory, previousRoundState.getTeamGames(1), opponentGamesMap);
+			} catch(RuntimeException e) {
+				numFailedCalls++;
+				if(firstFailure == null)
+					firstFailure = e;
+				return e;
+			}
+		}
+	}
+
+	/*
+	 * League of a number of teams with a history of a number of reallocation rounds, and the results of its last round
+	 */
+	private static class Fixture {
+
+		private final int numTeams, depth;
+		private final List<String> teamNames = new ArrayList<>();
+		private final GameHistory gameHistory = new GameHistory();
+		private LeagueState roundState;
+		private Map<Integer, PlayerPoints> roundPointsMap, roundCumulativePointsMap;
+		private Map<Integer, Double> roundRankingsMap, roundAverageRankingsMap;
+
+		private Fixture(int numTeams, int depth) {
+			this.numTeams = numTeams;
+			this.depth = depth;
+			for(int teamID = 1; teamID <= numTeams; teamID++)
+				teamNames.add("team" + teamID);
+
+			Random random = new Random(SEED);
+			int[][] goals = new int[numTeams + 1][numTeams + 1];
+			for(int teamID = 1; teamID <= numTeams; teamID++)
+				for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+					if(opponentID != teamID)
+						goals[teamID][opponentID] = random.nextInt(Game.getMaxGoalThreshold() + 1);
+			gameHistory.addRoundGames(0, toGamesMap(goals));
+
+			LeagueStandings standings = new LeagueStandings(numTeams);
+			for(int round = 1; round <= depth; round++) {
+				LeagueState previousRoundState = gameHistory.getAllRoundStatesMap().get(round - 1);
+				for(int teamID = 1; teamID <= numTeams; teamID++)
+					for(Game reallocatedPlayerGame : ConstraintBenchmark.reallocatePlayerGames(previousRoundState.getTeamGames(teamID), random))
+						goals[teamID][reallocatedPlayerGame.getID()] = reallocatedPlayerGame.getNumPlayerGoals();
+				gameHistory.addRoundGames(round, toGamesMap(goals));
+
+				roundState = gameHistory.getAllRoundStatesMap().get(round);
+				roundPointsMap = standings.computeTeamPoints(roundState);
+				roundCumulativePointsMap = standings.computeCumulativeTeamPoints(roundPointsMap);
+				roundRankingsMap = standings.computeRoundRankings(roundPointsMap);
+				roundAverageRankingsMap = standings.computeAverageRankings(roundRankingsMap);
+				gameHistory.addRoundPoints(round, roundPointsMap);
+				gameHistory.addRoundCumulativePoints(round, roundCumulativePointsMap);
+				gameHistory.addRoundRankings(round, roundRankingsMap);
+				gameHistory.addRoundAverageRankings(round, roundAverageRankingsMap);
+			}
+		}
+
+		private Map<Integer, List<Game>> toGamesMap(int[][] goals) {
+			Map<Integer, List<Game>> gamesMap = new HashMap<>();
+			for(int teamID = 1; teamID <= numTeams; teamID++) {
+				List<Game> teamGames = new ArrayList<>();
+				for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+					if(opponentID != teamID)
+						teamGames.add(new Game(opponentID, new Score(goals[teamID][opponentID], goals[opponentID][teamID])));
+				gamesMap.put(teamID, teamGames);
+			}
+			return gamesMap;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package random;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -8,7 +9,9 @@ import sim.Game;
 import sim.GameHistory;
 import sim.SimPrinter;
 
-public class Player extends sim.Player {
+public class Player extends sim.Player implements Serializable {
+
+     private static final long serialVersionUID = 1L;
 
      /**
       * Player constructor
@@ -0,0 +1,98 @@
+package sim;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Streams the games of each round to a CSV file as soon as the round completes.
+ *
+ * Rows go through a single reused builder and a buffered writer, so memory use does not depend on
+ * the number of rounds. Paths ending in ".gz" are written gzip-compressed.
+ *
+ */
+public class CSVExporter implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final List<String> teamNames;
+	private final StringBuilder row = new StringBuilder();
+	private Writer csvWriter;
+
+	/**
+	 * CSVExporter constructor
+	 *
+	 * @param csvPath    path of the CSV file, compressed if it ends in ".gz"
+	 * @param teamNames  team names ordered by team ID
+	 *
+	 */
+	public CSVExporter(String csvPath, List<String> teamNames) throws IOException {
+		this.teamNames = teamNames;
+
+		OutputStream outputStream = new FileOutputStream(csvPath);
+		try {
+			if(csvPath.endsWith(".gz"))
+				outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+		} catch(IOException e) {
+			outputStream.close();
+			throw e;
+		}
+		this.csvWriter = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+		csvWriter.write("Round,Team,Opponent,GF,GA,GD,PF,PA\n");
+	}
+
+	public void writeRound(int round, LeagueState roundState) throws IOException {
+		if(csvWriter == null)
+			throw new IllegalStateException("The CSV file has already been closed!");
+
+		int numTeams = roundState.getNumTeams();
+		for(int teamID = 1; teamID <= numTeams; teamID++) {
+			for(int opponentID = 1; opponentID <= numTeams; opponentID++) {
+				if(opponentID == teamID)
+					continue;
+				int goalsFor = roundState.getGoals(teamID, opponentID);
+				int goalsAgainst = roundState.getGoals(opponentID, teamID);
+				int pointsFor, pointsAgainst;
+				if(goalsFor > goalsAgainst) {
+					pointsFor = PlayerPoints.getWinPointValue();
+					pointsAgainst = PlayerPoints.getLossPointValue();
+				}
+				else if(goalsFor < goalsAgainst) {
+					pointsFor = PlayerPoints.getLossPointValue();
+					pointsAgainst = PlayerPoints.getWinPointValue();
+				}
+				else {
+					pointsFor = PlayerPoints.getDrawPointValue();
+					pointsAgainst = PlayerPoints.getDrawPointValue();
+				}
+
+				row.setLength(0);
+				row.append(round).append(',')
+				   .append(teamNames.get(teamID - 1)).append(',')
+				   .append(teamNames.get(opponentID - 1)).append(',')
+				   .append(goalsFor).append(',')
+				   .append(goalsAgainst).append(',')
+				   .append(goalsFor - goalsAgainst).append(',')
+				   .append(pointsFor).append(',')
+				   .append(pointsAgainst).append('\n');
+				csvWriter.append(row);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(csvWriter == null)
+			return;
+		Writer writer = csvWriter;
+		csvWriter = null;
+		writer.close();
+	}
+}
@@ -0,0 +1,260 @@
+package sim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * State of a simulation at the end of a round, from which the simulation can be resumed.
+ *
+ * A checkpoint holds the rank and points accumulators, the state of the simulation's random generator,
+ * the timeout counts of the teams, and the serialized state of the players that implement Serializable.
+ * The game history is not part of the checkpoint: the rounds are appended to a run log next to it as they
+ * complete, and the checkpoint only records the length of that run log, so writing a checkpoint costs the
+ * same whatever the round. Players that are not serialized are created again with the same seed on resume,
+ * and rebuilt by replaying their reallocations of the checkpointed rounds.
+ *
+ * Checkpoints are written as a gzip-compressed object stream to a temporary file, which then replaces
+ * the previous checkpoint, so an interrupted write never destroys the latest complete checkpoint.
+ *
+ */
+public class Checkpoint {
+
+	private static final int MAGIC = 0x52534350;   // "RSCP"
+	private static final int VERSION = 4;
+
+	private final int seed, rounds, round;
+	private final List<String> teamNames;
+	private final long historyLength;
+	private final Random random;
+	private final int numRankedRounds;
+	private final double[] rankSums;
+	private final int[] cumulativePoints;
+	private final Map<String, Integer> timeoutCountsMap;
+	private final List<byte[]> playerStates;
+
+	Checkpoint(int seed, int rounds, int round, List<String> teamNames, long historyLength, Random random,
+			int numRankedRounds, double[] rankSums, int[] cumulativePoints, Map<String, Integer> timeoutCountsMap,
+			List<byte[]> playerStates) {
+		this.seed = seed;
+		this.rounds = rounds;
+		this.round = round;
+		this.teamNames = Collections.unmodifiableList(new ArrayList<>(teamNames));
+		this.historyLength = historyLength;
+		this.random = random;
+		this.numRankedRounds = numRankedRounds;
+		this.rankSums = rankSums;
+		this.cumulativePoints = cumulativePoints;
+		this.timeoutCountsMap = Collections.unmodifiableMap(new TreeMap<>(timeoutCountsMap));
+		this.playerStates = Collections.unmodifiableList(new ArrayList<>(playerStates));
+	}
+
+	/*
+	 * Run log holding the game history of the checkpoints written to the given path
+	 */
+	static String getHistoryPath(String path) {
+		return path + ".history";
+	}
+
+	public int getSeed() {
+		return seed;
+	}
+
+	public int getNumRounds() {
+		return rounds;
+	}
+
+	/*
+	 * Last completed round, from which the simulation resumes with the next round
+	 */
+	public int getRound() {
+		return round;
+	}
+
+	/*
+	 * Team names ordered by team ID, i.e., the name of team ID i is at index i - 1
+	 */
+	public List<String> getTeamNames() {
+		return teamNames;
+	}
+
+	/*
+	 * Length of the game history run log up to the checkpointed round
+	 */
+	long getHistoryLength() {
+		return historyLength;
+	}
+
+	Random getRandom() {
+		return random;
+	}
+
+	int getNumRankedRounds() {
+		return numRankedRounds;
+	}
+
+	double[] getRankSums() {
+		return rankSums;
+	}
+
+	int[] getCumulativePoints() {
+		return cumulativePoints;
+	}
+
+	Map<String, Integer> getTimeoutCountsMap() {
+		return timeoutCountsMap;
+	}
+
+	/*
+	 * Serialized player states ordered by team ID, with null for players that are rebuilt by replay
+	 */
+	List<byte[]> getPlayerStates() {
+		return playerStates;
+	}
+
+	/**
+	 * Serialize the internal state of a player that implements Serializable, along with its random generator
+	 *
+	 * @param player  player
+	 * @return        serialized player
+	 * @throws IOException  if the player, or any object it references, is not serializable
+	 *
+	 */
+	static byte[] serializePlayer(Player player) throws IOException {
+		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+		try(ObjectOutputStream outputStream = new ObjectOutputStream(byteStream)) {
+			outputStream.writeObject(player.random);
+			outputStream.writeObject(player);
+		}
+		return byteStream.toByteArray();
+	}
+
+	/**
+	 * Deserialize the internal state of a player
+	 *
+	 * The fields of sim.Player other than the random generator are not serialized, so they are taken
+	 * from a fresh player of the same team.
+	 *
+	 * @param playerState  serialized player
+	 * @param freshPlayer  player of the same team created for the resumed simulation
+	 * @return             player
+	 *
+	 */
+	static Player deserializePlayer(byte[] playerState, Player freshPlayer) throws IOException, ClassNotFoundException {
+		ClassLoader classLoader = freshPlayer.getClass().getClassLoader();
+		try(ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(playerState)) {
+			@Override
+			protected Class<?> resolveClass(ObjectStreamClass objectStreamClass) throws IOException, ClassNotFoundException {
+				try {
+					return Class.forName(objectStreamClass.getName(), false, classLoader);
+				} catch(ClassNotFoundException e) {
+					return super.resolveClass(objectStreamClass);
+				}
+			}
+		}) {
+			Random random = (Random) inputStream.readObject();
+			Player player = (Player) inputStream.readObject();
+			player.teamID = freshPlayer.teamID;
+			player.rounds = freshPlayer.rounds;
+			player.seed = freshPlayer.seed;
+			player.random = random;
+			player.simPrinter = freshPlayer.simPrinter;
+			return player;
+		}
+	}
+
+	public void write(String path) throws IOException {
+		Path checkpointPath = Paths.get(path).toAbsolutePath();
+		Path temporaryPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+		try(ObjectOutputStream outputStream = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryPath.toFile()), 1 << 16)))) {
+			outputStream.writeInt(MAGIC);
+			outputStream.writeInt(VERSION);
+			outputStream.writeInt(seed);
+			outputStream.writeInt(rounds);
+			outputStream.writeInt(round);
+			outputStream.writeInt(teamNames.size());
+			for(String teamName : teamNames)
+				outputStream.writeUTF(teamName);
+			outputStream.writeLong(historyLength);
+			outputStream.writeInt(numRankedRounds);
+			for(int teamID = 1; teamID <= teamNames.size(); teamID++) {
+				outputStream.writeDouble(rankSums[teamID]);
+				outputStream.writeInt(cumulativePoints[teamID]);
+			}
+			outputStream.writeObject(new TreeMap<>(timeoutCountsMap));
+			outputStream.writeObject(random);
+			for(byte[] playerState : playerStates) {
+				outputStream.writeInt(playerState == null ? -1 : playerState.length);
+				if(playerState != null)
+					outputStream.write(playerState);
+			}
+		}
+		try {
+			Files.move(temporaryPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch(AtomicMoveNotSupportedException e) {
+			Files.move(temporaryPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public static Checkpoint read(String path) throws IOException {
+		try(ObjectInputStream inputStream = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16)))) {
+			if(inputStream.readInt() != MAGIC)
+				throw new IOException("\"" + path + "\" is not a checkpoint!");
+			int version = inputStream.readInt();
+			if(version != VERSION)
+				throw new IOException("Unsupported checkpoint version " + version + "!");
+			int seed = inputStream.readInt();
+			int rounds = inputStream.readInt();
+			int round = inputStream.readInt();
+			int numTeams = inputStream.readInt();
+			List<String> teamNames = new ArrayList<>();
+			for(int i = 0; i < numTeams; i++)
+				teamNames.add(inputStream.readUTF());
+			long historyLength = inputStream.readLong();
+			int numRankedRounds = inputStream.readInt();
+			double[] rankSums = new double[numTeams + 1];
+			int[] cumulativePoints = new int[numTeams + 1];
+			for(int teamID = 1; teamID <= numTeams; teamID++) {
+				rankSums[teamID] = inputStream.readDouble();
+				cumulativePoints[teamID] = inputStream.readInt();
+			}
+			Map<String, Integer> timeoutCountsMap = (Map<String, Integer>) inputStream.readObject();
+			Random random = (Random) inputStream.readObject();
+			List<byte[]> playerStates = new ArrayList<>();
+			for(int i = 0; i < numTeams; i++) {
+				int playerStateLength = inputStream.readInt();
+				byte[] playerState = null;
+				if(playerStateLength >= 0) {
+					playerState = new byte[playerStateLength];
+					inputStream.readFully(playerState);
+				}
+				playerStates.add(playerState);
+			}
+			return new Checkpoint(seed, rounds, round, teamNames, historyLength, random,
+					numRankedRounds, rankSums, cumulativePoints, timeoutCountsMap, playerStates);
+		} catch(ClassNotFoundException | ClassCastException e) {
+			throw new IOException("The checkpoint \"" + path + "\" is corrupted!", e);
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package sim;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Writes the round states published to the GUI.
+ *
+ * Wins, draws, losses, and goals are kept as running totals over all rounds added so far, so writing
+ * a state does not grow with the number of rounds. States are written into a reused buffer.
+ *
+ */
+public class GUIStateWriter {
+
+	private final List<String> teamNames;
+	private final int rounds;
+	private final double refresh;
+	private final boolean continuous;
+
+	// Running totals over all added rounds, indexed by team ID
+	private final int[] cumulativeWins, cumulativeDraws, cumulativeLosses, cumulativeGoalsFor, cumulativeGoalsAgainst;
+	private final JSONBuffer json = new JSONBuffer();
+	private final DecimalFormat rankFormat = new DecimalFormat("###.####");
+
+	/**
+	 * GUIStateWriter constructor
+	 *
+	 * @param teamNames   team names ordered by team ID
+	 * @param rounds      number of rounds of the league
+	 * @param fpm         GUI frames per minute
+	 * @param continuous  whether the GUI advances through rounds by itself
+	 *
+	 */
+	public GUIStateWriter(List<String> teamNames, int rounds, double fpm, boolean continuous) {
+		this.teamNames = new ArrayList<>(teamNames);
+		this.rounds = rounds;
+		this.refresh = 60000.0 / fpm;
+		this.continuous = continuous;
+		this.cumulativeWins = new int[teamNames.size() + 1];
+		this.cumulativeDraws = new int[teamNames.size() + 1];
+		this.cumulativeLosses = new int[teamNames.size() + 1];
+		this.cumulativeGoalsFor = new int[teamNames.size() + 1];
+		this.cumulativeGoalsAgainst = new int[teamNames.size() + 1];
+	}
+
+	/*
+	 * Adds a reallocation round to the running totals
+	 */
+	public void addRound(LeagueState roundState) {
+		for(int teamID = 1; teamID <= roundState.getNumTeams(); teamID++) {
+			cumulativeWins[teamID] += roundState.getNumWins(teamID);
+			cumulativeDraws[teamID] += roundState.getNumDraws(teamID);
+			cumulativeLosses[teamID] += roundState.getNumLosses(teamID);
+			cumulativeGoalsFor[teamID] += roundState.getNumGoalsFor(teamID);
+			cumulativeGoalsAgainst[teamID] += roundState.getNumGoalsAgainst(teamID);
+		}
+	}
+
+	/**
+	 * Write the GUI state of the last added round
+	 *
+	 * @return  GUI state as JSON
+	 *
+	 */
+	public String write(int round,
+						LeagueState roundState,
+						Map<Integer, PlayerPoints> roundPointsMap,
+						Map<Integer, PlayerPoints> roundCumulativePointsMap,
+						Map<Integer, Double> roundRankingsMap,
+						Map<Integer, Double> roundAverageRankingsMap) {
+
+		int numTeams = roundState.getNumTeams();
+		json.reset();
+		json.beginObject();
+		json.key("refresh").value(refresh);
+		json.key("totalRounds").value(rounds);
+		json.key("currentRound").value(round);
+		json.key("continuous").value(continuous);
+
+		json.key("games").beginObject();
+		for(int teamID = 1; teamID <= numTeams; teamID++) {
+			json.key(teamNames.get(teamID - 1)).beginObject();
+			for(int gameID = 1; gameID <= numTeams; gameID++) {
+				if(gameID == teamID)
+					continue;
+				json.key(teamNames.get(gameID - 1)).beginObject();
+				json.key("playerGoals").value(roundState.getGoals(teamID, gameID));
+				json.key("opponentGoals").value(roundState.getGoals(gameID, teamID));
+				json.endObject();
+			}
+			json.endObject();
+		}
+		json.endObject();
+
+		json.key("points").beginObject();
+		for(int teamID = 1; teamID <= numTeams; teamID++)
+			json.key(teamNames.get(teamID - 1)).value(roundPointsMap.get(teamID).getTotalPoints());
+		json.endObject();
+		json.key("cumulativePoints").beginObject();
+		for(int teamID = 1; teamID <= numTeams; teamID++)
+			json.key(teamNames.get(teamID - 1)).value(roundCumulativePointsMap.get(teamID).getTotalPoints());
+		json.endObject();
+		writeRankings("rankings", roundRankingsMap);
+		writeTeamCounts("cumulativeWins", cumulativeWins);
+		writeTeamCounts("cumulativeDraws", cumulativeDraws);
+		writeTeamCounts("cumulativeLosses", cumulativeLosses);
+		writeTeamCounts("cumulativeGoalsFor", cumulativeGoalsFor);
+		writeTeamCounts("cumulativeGoalsAgainst", cumulativeGoalsAgainst);
+
+		json.key("roundWins").beginObject();
+		for(int teamID = 1; teamID <= numTeams; teamID++)
+			json.key(teamNames.get(teamID - 1)).value(roundState.getNumWins(teamID));
+		json.endObject();
+		json.key("roundDraws").beginObject();
+		for(int teamID = 1; teamID <= numTeams; teamID++)
+			json.key(teamNames.get(teamID - 1)).value(roundState.getNumDraws(teamID));
+		json.endObject();
+		json.key("roundLosses").beginObject();
+		for(int teamID = 1; teamID <= numTeams; teamID++)
+			json.key(teamNames.get(teamID - 1)).value(roundState.getNumLosses(teamID));
+		json.endObject();
+
+		writeOrderedRankings("orderedRankings", Simulation.orderRankings(roundRankingsMap));
+		writeRankings("averageRankings", roundAverageRankingsMap);
+		writeOrderedRankings("orderedAverageRankings", Simulation.orderRankings(roundAverageRankingsMap));
+		json.endObject();
+
+		return json.toString();
+	}
+
+	private void writeTeamCounts(String key, int[] counts) {
+		json.key(key).beginObject();
+		for(int teamID = 1; teamID < counts.length; teamID++)
+			json.key(teamNames.get(teamID - 1)).value(counts[teamID]);
+		json.endObject();
+	}
+
+	private void writeRankings(String key, Map<Integer, Double> rankingsMap) {
+		json.key(key).beginObject();
+		for(int teamID = 1; teamID <= teamNames.size(); teamID++)
+			json.key(teamNames.get(teamID - 1)).value(rankFormat.format(rankingsMap.get(teamID)));
+		json.endObject();
+	}
+
+	private void writeOrderedRankings(String key, Map<Integer, Double> orderedRankingsMap) {
+		json.key(key).beginArray();
+		for(Map.Entry<Integer, Double> rankingEntry : orderedRankingsMap.entrySet()) {
+			json.beginObject();
+			json.key("team").value(teamNames.get(rankingEntry.getKey() - 1));
+			json.key("ranking").value(rankFormat.format(rankingEntry.getValue()));
+			json.endObject();
+		}
+		json.endArray();
+	}
+}
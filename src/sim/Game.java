@@ -37,7 +37,7 @@ public class Game implements Serializable {
 	}
 
 	public Integer getHalfNumPlayerGoals() {
-		return (int) Math.ceil(((double) getNumPlayerGoals()) / 2);
+		return Math.floorDiv(getNumPlayerGoals() + 1, 2);
 	}
 	
 	public void setNumPlayerGoals(Integer numPlayerGoals) {
@@ -49,7 +49,7 @@ public class Game implements Serializable {
 	}
 
 	public Integer getHalfNumOpponentGoals() {
-		return (int) Math.ceil(((double) getNumOpponentGoals()) / 2);
+		return Math.floorDiv(getNumOpponentGoals() + 1, 2);
 	}
 	
 	public void setNumOpponentGoals(Integer numOpponentGoals) {
@@ -1,58 +1,131 @@
 package sim;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import jdk.jfr.EventType;
+
 public class GameHistory implements Serializable {
 
 	private static final long serialVersionUID = 1L;
-	
-	private Map<Integer, Map<Integer, Double>> allRoundRankingsMap = new HashMap<>();
-	private Map<Integer, Map<Integer, Double>> allAverageRankingsMap = new HashMap<>();
-	private Map<Integer, Map<Integer, List<Game>>> allGamesMap = new HashMap<>();
-	private Map<Integer, Map<Integer, PlayerPoints>> allRoundPointsMap = new HashMap<>();
-	private Map<Integer, Map<Integer, PlayerPoints>> allCumulativePointsMap = new HashMap<>();
-	
-		
+
+	public static final int DEFAULT_KEYFRAME_INTERVAL = 32;
+
+	private static final EventType HISTORY_SNAPSHOT_EVENT_TYPE = EventType.getEventType(HistorySnapshotEvent.class);
+
+	private RoundMap<Map<Integer, Double>> allRoundRankingsMap = new RoundMap<>();
+	private RoundMap<Map<Integer, Double>> allAverageRankingsMap = new RoundMap<>();
+	private RoundStateMap allRoundStatesMap;
+	private RoundMap<Map<Integer, PlayerPoints>> allRoundPointsMap = new RoundMap<>();
+	private RoundMap<Map<Integer, PlayerPoints>> allCumulativePointsMap = new RoundMap<>();
+	private transient Map<Integer, Map<Integer, List<Game>>> allGamesMap;
+
+	public GameHistory() {
+		this(DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+	/**
+	 * GameHistory constructor
+	 *
+	 * @param keyframeInterval  number of rounds between round states stored in full; the rounds in between
+	 *                          only store the games that changed since the previous round
+	 *
+	 */
+	public GameHistory(int keyframeInterval) {
+		this.allRoundStatesMap = new RoundStateMap(keyframeInterval);
+	}
+
+	private GameHistory(GameHistory gameHistory) {
+		this.allRoundRankingsMap = gameHistory.allRoundRankingsMap.snapshot();
+		this.allAverageRankingsMap = gameHistory.allAverageRankingsMap.snapshot();
+		this.allRoundStatesMap = gameHistory.allRoundStatesMap.snapshot();
+		this.allRoundPointsMap = gameHistory.allRoundPointsMap.snapshot();
+		this.allCumulativePointsMap = gameHistory.allCumulativePointsMap.snapshot();
+	}
+
+	/*
+	 * Creates a read-only view of all rounds completed so far in O(1) time.
+	 *
+	 * Every stored round is immutable once added, so the snapshot shares all round data with
+	 * this history and later rounds are never visible through it.
+	 *
+	 * @return  read-only snapshot of the game history
+	 *
+	 */
+	public GameHistory snapshot() {
+		if(!HISTORY_SNAPSHOT_EVENT_TYPE.isEnabled())
+			return new GameHistory(this);
+
+		HistorySnapshotEvent event = new HistorySnapshotEvent();
+		event.begin();
+		GameHistory gameHistory = new GameHistory(this);
+		if(event.shouldCommit()) {
+			event.numRounds = allRoundStatesMap.size();
+			event.commit();
+		}
+		return gameHistory;
+	}
+
 	public Map<Integer, Map<Integer, Double>> getAllRoundRankingsMap() {
 		return allRoundRankingsMap;
 	}
-	
+
 	public void addRoundRankings(Integer round, Map<Integer, Double> roundRankingsMap) {
-		allRoundRankingsMap.put(round, roundRankingsMap);
+		allRoundRankingsMap.put(round, Collections.unmodifiableMap(new HashMap<>(roundRankingsMap)));
 	}
-	
+
 	public Map<Integer, Map<Integer, Double>> getAllAverageRankingsMap() {
 		return allAverageRankingsMap;
 	}
 
 	public void addRoundAverageRankings(Integer round, Map<Integer, Double> roundAverageRankingsMap) {
-		allAverageRankingsMap.put(round, roundAverageRankingsMap);
+		allAverageRankingsMap.put(round, Collections.unmodifiableMap(new HashMap<>(roundAverageRankingsMap)));
 	}
-	
+
 	public Map<Integer, Map<Integer, List<Game>>> getAllGamesMap() {
+		if(allGamesMap == null)
+			allGamesMap = RoundMap.mapValues(allRoundStatesMap, LeagueState::getReadOnlyGamesMap);
 		return allGamesMap;
 	}
 	
 	public void addRoundGames(Integer round, Map<Integer, List<Game>> roundGamesMap) {
-		allGamesMap.put(round, roundGamesMap);
+		allRoundStatesMap.put(round, LeagueState.fromGamesMap(roundGamesMap.size(), roundGamesMap));
+	}
+
+	public Map<Integer, LeagueState> getAllRoundStatesMap() {
+		return Collections.unmodifiableMap(allRoundStatesMap);
+	}
+
+	/*
+	 * The round state must not be modified after it has been added to the history
+	 */
+	void addRoundState(Integer round, LeagueState roundState) {
+		allRoundStatesMap.put(round, roundState);
 	}
 
 	public Map<Integer, Map<Integer, PlayerPoints>> getAllRoundPointsMap() {
 		return allRoundPointsMap;
 	}
-	
+
 	public void addRoundPoints(Integer round, Map<Integer, PlayerPoints> roundPointsMap) {
-		allRoundPointsMap.put(round, roundPointsMap);
+		allRoundPointsMap.put(round, readOnlyPointsMap(roundPointsMap));
 	}
 
 	public Map<Integer, Map<Integer, PlayerPoints>> getAllCumulativePointsMap() {
 		return allCumulativePointsMap;
 	}
-	
+
 	public void addRoundCumulativePoints(Integer round, Map<Integer, PlayerPoints> roundCumulativePointsMap) {
-		allCumulativePointsMap.put(round, roundCumulativePointsMap);
+		allCumulativePointsMap.put(round, readOnlyPointsMap(roundCumulativePointsMap));
+	}
+
+	private static Map<Integer, PlayerPoints> readOnlyPointsMap(Map<Integer, PlayerPoints> pointsMap) {
+		Map<Integer, PlayerPoints> readOnlyPointsMap = new HashMap<>();
+		for(Map.Entry<Integer, PlayerPoints> pointsEntry : pointsMap.entrySet())
+			readOnlyPointsMap.put(pointsEntry.getKey(), new ReadOnlyPlayerPoints(pointsEntry.getValue().getTotalPoints()));
+		return Collections.unmodifiableMap(readOnlyPointsMap);
 	}
-}
\ No newline at end of file
+}
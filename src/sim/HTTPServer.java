@@ -1,147 +1,561 @@
 package sim;
 
-import java.io.*;
-import java.net.*;
-import java.time.*;
-import java.time.format.*;
-import java.nio.channels.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
+/*
+ * Non-blocking HTTP/1.1 server for the GUI, running on its own selector thread.
+ *
+ * Connections are kept alive and requests are parsed from a buffer per connection, so any number of
+ * viewers can watch at once. The simulation hands the GUI state of each round to publish, which never
+ * waits for a browser. Viewers request "data.txt?round=N": the request is answered with the state of
+ * round N as soon as it is published, or with the oldest retained state if round N is no longer
+ * retained, and is answered with 204 No Content if round N is not published within the poll timeout.
+ * Only the latest rounds are retained, within a bound on their number and their total size, so a
+ * league of many teams does not keep a large history of states in memory.
+ * Static files are cached in memory and revalidated with Last-Modified.
+ *
+ * Viewers that request "events" instead receive a stream of Server-Sent Events, one per round, pushed
+ * as rounds are published. Rounds published while a viewer's previous event is still being written are
+ * coalesced, so a viewer that falls behind only receives the latest round, and never holds back the
+ * simulation or the other viewers.
+ *
+ * The server thread keeps serving after the simulation completes, until the server is closed.
+ *
+ */
 public class HTTPServer {
 
-    private ServerSocket socket = null;
-    private Socket connection = null;
-    private byte[] buffer = new byte[8192];
-
-    public HTTPServer() throws IOException {
-        socket = new ServerSocket();
-        socket.bind(null);
-        if(!socket.isBound())
-            throw new NotYetBoundException();
-    }
-
-    public int port() {
-        return socket == null ? -1 : socket.getLocalPort();
-    }
-    
-    public String addr() {
-    	return socket == null ? "N/A" : socket.getLocalSocketAddress().toString();
-    }
-
-    public void close() throws IOException {
-        if(connection != null)
-            throw new ConnectionPendingException();
-        if(socket != null) {
-            socket.close();
-            socket = null;
-        }
-    }
-
-    public String request() throws IOException {
-    	if(connection != null)
-            throw new ConnectionPendingException();
-        connection = socket.accept();
-        
-        InputStream in = connection.getInputStream();
-        int character, index = 0;
-        do {
-            try {
-            	character = in.read();
-            } catch(IOException e1) {
-                try {
-                    connection.close();
-                } catch(IOException e2) {}
-                
-                connection = null;
-                throw e1;
-            }
-            
-            if(character < 0 || index == buffer.length) {
-                try {
-                    connection.close();
-                } catch(IOException e) {}
-                
-                connection = null;
-                throw new UnknownServiceException("Incomplete HTTP request");
-            }
-            
-            buffer[index++] = (byte) character;
-        } while(index < 4 || buffer[index - 1] != '\n' || buffer[index - 2] != '\r' || buffer[index - 3] != '\n' || buffer[index - 4] != '\r');
-
-        for(index = 0; buffer[index] != '\r'; ++index);
-        
-        String line = new String(buffer, 0, index);
-        String[] parts = line.split(" ");
-        if(parts.length != 3 || !parts[0].equals("GET") || !parts[1].startsWith("/") || !parts[2].equals("HTTP/1.1")) {
-            try {
-                connection.close();
-            } catch(IOException e) {}
-            
-            connection = null;
-            throw new UnknownServiceException("Invalid HTTP request: " + line);
-        }
-        
-        return parts[1].substring(1);
-    }
-
-    public void reply(File file) throws IOException {
-        if(connection == null)
-            throw new NoConnectionPendingException();
-        
-        FileInputStream in = new FileInputStream(file);
-        OutputStream out = connection.getOutputStream();
-        
-        String date = ZonedDateTime.now(ZoneId.of("GMT")).format(DateTimeFormatter.RFC_1123_DATE_TIME);
-        String header = "HTTP/1.1 200 OK\r\n";
-        long length = file.length();
-        header += "Content-Length: " + length + "\r\n";
-        header += "Cache-Control: no-cache, no-store\r\n";
-        header += "Date: " + date + "\r\n\r\n";
-        
-        try {
-            out.write(header.getBytes());
-            int bytes;
-            while((bytes = in.read(buffer)) >= 0) {
-                length -= bytes;
-                if(length < 0)
-                	break;
-                out.write(buffer, 0, bytes);
-            }
-            if(length != 0)
-                throw new IOException("The file was modified during the reply!");
-        } finally {
-            try {
-                in.close();
-            } catch(IOException e) {}
-            
-            try {
-                connection.close();
-            } catch(IOException e) {}
-            
-            connection = null;
-        }
-    }
-
-    public void reply(String content) throws IOException {
-        if(connection == null)
-            throw new NoConnectionPendingException();
-        
-        OutputStream out = connection.getOutputStream();
-        
-        String date = ZonedDateTime.now(ZoneId.of("GMT")).format(DateTimeFormatter.RFC_1123_DATE_TIME);
-        String header = "HTTP/1.1 200 OK\r\n";
-        header += "Content-Length: " + content.length() + "\r\n";
-        header += "Cache-Control: no-cache, no-store\r\n";
-        header += "Date: " + date + "\r\n\r\n";
-        
-        try {
-            out.write(header.getBytes());
-            out.write(content.getBytes());
-        } finally {
-            try {
-                connection.close();
-            } catch(IOException e) {}
-            
-            connection = null;
-        }
-    }
-}
\ No newline at end of file
+	private static final int MAX_REQUEST_SIZE = 8192;
+	private static final int MAX_RETAINED_STATES = 64;
+	private static final long MAX_RETAINED_BYTES = 64L << 20;
+	private static final long POLL_TIMEOUT = 25000;
+	private static final long HEARTBEAT_INTERVAL = 15000;
+	private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.ISO_8859_1);
+	private static final DateTimeFormatter HTTP_DATE_FORMAT = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneId.of("GMT"));
+
+	private final ServerSocketChannel serverChannel;
+	private final Selector selector;
+	private final File staticsDirectory;
+	private final Log log;
+	private final Thread serverThread;
+	private volatile boolean closed = false;
+
+	// Published GUI states by round, in a ring of the latest MAX_RETAINED_STATES rounds; the latest round is always retained
+	private final byte[][] states = new byte[MAX_RETAINED_STATES][];
+	private int firstRetainedRound = -1, latestRound = -1;
+	private long numRetainedBytes = 0;
+	private byte[] latestEvent;
+
+	// Only used by the server thread
+	private final Map<String, StaticFile> staticFilesMap = new HashMap<>();
+	private final List<Connection> pollingConnections = new ArrayList<>();
+	private final List<Connection> streamingConnections = new ArrayList<>();
+
+	public HTTPServer(String staticsPath, Log log) throws IOException {
+		this.staticsDirectory = new File(staticsPath).getCanonicalFile();
+		this.log = log;
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		try {
+			serverChannel.bind(null);
+			serverChannel.configureBlocking(false);
+			serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		} catch(IOException e) {
+			serverChannel.close();
+			selector.close();
+			throw e;
+		}
+
+		this.serverThread = new Thread(this::serve, "http-server");
+		serverThread.start();
+	}
+
+	public int port() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	public String addr() {
+		return serverChannel.socket().getLocalSocketAddress().toString();
+	}
+
+	/**
+	 * Publish the GUI state of a round to all viewers
+	 *
+	 * Rounds are expected in increasing order; a round that does not follow the latest published round
+	 * replaces all retained rounds.
+	 *
+	 * @param round    round
+	 * @param content  GUI state of the round
+	 *
+	 */
+	public void publish(int round, String content) {
+		byte[] state = content.getBytes(StandardCharsets.UTF_8);
+		byte[] event = ("id: " + round + "\ndata: " + content + "\n\n").getBytes(StandardCharsets.UTF_8);
+		synchronized(states) {
+			if(latestRound < 0 || round != latestRound + 1) {
+				Arrays.fill(states, null);
+				numRetainedBytes = 0;
+				firstRetainedRound = round;
+			}
+			else if(round - firstRetainedRound >= MAX_RETAINED_STATES)
+				dropOldestState();
+			states[Math.floorMod(round, MAX_RETAINED_STATES)] = state;
+			numRetainedBytes += state.length;
+			while(numRetainedBytes > MAX_RETAINED_BYTES && firstRetainedRound < round)
+				dropOldestState();
+			latestRound = round;
+			latestEvent = event;
+		}
+		selector.wakeup();
+	}
+
+	private void dropOldestState() {
+		int index = Math.floorMod(firstRetainedRound, MAX_RETAINED_STATES);
+		numRetainedBytes -= states[index].length;
+		states[index] = null;
+		firstRetainedRound++;
+	}
+
+	public void close() throws IOException {
+		closed = true;
+		selector.wakeup();
+		try {
+			serverThread.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void serve() {
+		try {
+			while(!closed) {
+				selector.select(1000);
+				Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
+				while(keyIterator.hasNext()) {
+					SelectionKey key = keyIterator.next();
+					keyIterator.remove();
+					if(!key.isValid())
+						continue;
+					if(key.isAcceptable())
+						accept();
+					else {
+						Connection connection = (Connection) key.attachment();
+						try {
+							if(key.isReadable())
+								connection.read();
+							if(key.isValid() && key.isWritable())
+								connection.write();
+						} catch(IOException e) {
+							log.writeToVerboseLogFile("HTTP connection error: " + e.getMessage());
+							connection.close();
+						}
+					}
+				}
+				answerPolls();
+				pushEvents();
+			}
+		} catch(IOException e) {
+			log.writeToLogFile("HTTP server error: " + e.getMessage());
+		} finally {
+			for(SelectionKey key : selector.keys())
+				if(key.attachment() instanceof Connection)
+					((Connection) key.attachment()).close();
+			try {
+				serverChannel.close();
+				selector.close();
+			} catch(IOException e) {}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while((channel = serverChannel.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			Connection connection = new Connection(channel);
+			connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+		}
+	}
+
+	/*
+	 * Answers the held requests whose rounds have been published or whose poll timeout has passed
+	 */
+	private void answerPolls() {
+		if(pollingConnections.isEmpty())
+			return;
+
+		long now = System.currentTimeMillis();
+		for(Connection connection : new ArrayList<>(pollingConnections)) {
+			byte[] state = getState(connection.polledRound);
+			if(state == null && now < connection.pollDeadline)
+				continue;
+
+			pollingConnections.remove(connection);
+			connection.polledRound = -1;
+			if(state == null)
+				connection.respond(204, "No Content", null, "no-store", null, null);
+			else
+				connection.respond(200, "OK", "application/json; charset=utf-8", "no-store", null, state);
+			try {
+				connection.handleRequests();
+			} catch(IOException e) {
+				connection.close();
+			}
+		}
+	}
+
+	/*
+	 * Sends the latest round to each event stream that has written its previous events, or a heartbeat to idle streams
+	 */
+	private void pushEvents() {
+		if(streamingConnections.isEmpty())
+			return;
+
+		int round;
+		byte[] event;
+		synchronized(states) {
+			round = latestRound;
+			event = latestEvent;
+		}
+		long now = System.currentTimeMillis();
+		for(Connection connection : new ArrayList<>(streamingConnections)) {
+			if(!connection.output.isEmpty())
+				continue;
+			if(round > connection.streamedRound) {
+				connection.output.add(ByteBuffer.wrap(event));
+				connection.streamedRound = round;
+			}
+			else if(now - connection.lastWriteTime >= HEARTBEAT_INTERVAL)
+				connection.output.add(ByteBuffer.wrap(HEARTBEAT));
+			else
+				continue;
+			try {
+				connection.write();
+			} catch(IOException e) {
+				connection.close();
+			}
+		}
+	}
+
+	/*
+	 * State of a round, the oldest retained state if the round is no longer retained, or null if the round is not published yet;
+	 * round 0 stands for the latest published round
+	 */
+	private byte[] getState(int round) {
+		synchronized(states) {
+			if(latestRound < 0 || round > latestRound)
+				return null;
+			if(round == 0)
+				round = latestRound;
+			return states[Math.floorMod(Math.max(round, firstRetainedRound), MAX_RETAINED_STATES)];
+		}
+	}
+
+	private StaticFile getStaticFile(String path) throws IOException {
+		File file = new File(staticsDirectory, path).getCanonicalFile();
+		if(!file.getPath().startsWith(staticsDirectory.getPath() + File.separator) || !file.isFile())
+			return null;
+
+		StaticFile staticFile = staticFilesMap.get(path);
+		long lastModified = file.lastModified() / 1000 * 1000;
+		if(staticFile == null || staticFile.lastModified != lastModified) {
+			staticFile = new StaticFile(Files.readAllBytes(file.toPath()), lastModified, getContentType(path));
+			staticFilesMap.put(path, staticFile);
+		}
+		return staticFile;
+	}
+
+	private static String getContentType(String path) {
+		String extension = path.substring(path.lastIndexOf('.') + 1).toLowerCase();
+		switch(extension) {
+		case "html":
+			return "text/html; charset=utf-8";
+		case "jpg":
+		case "jpeg":
+			return "image/jpeg";
+		case "png":
+			return "image/png";
+		case "ico":
+			return "image/x-icon";
+		default:
+			return "application/octet-stream";
+		}
+	}
+
+	private static class StaticFile {
+
+		private final byte[] content;
+		private final long lastModified;
+		private final String contentType;
+
+		private StaticFile(byte[] content, long lastModified, String contentType) {
+			this.content = content;
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+		}
+	}
+
+	private class Connection {
+
+		private final SocketChannel channel;
+		private final ByteBuffer input = ByteBuffer.allocate(MAX_REQUEST_SIZE);
+		private final Deque<ByteBuffer> output = new ArrayDeque<>();
+		private SelectionKey key;
+		private boolean keepAlive = true, closeAfterOutput = false, headRequest = false;
+		private int polledRound = -1, streamedRound = -1;
+		private long numBodyBytesToSkip = 0;
+		private long pollDeadline, lastWriteTime;
+
+		private Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		private void read() throws IOException {
+			if(channel.read(input) < 0) {
+				close();
+				return;
+			}
+			handleRequests();
+		}
+
+		private void write() throws IOException {
+			while(!output.isEmpty()) {
+				ByteBuffer buffer = output.peek();
+				if(channel.write(buffer) > 0)
+					lastWriteTime = System.currentTimeMillis();
+				if(buffer.hasRemaining())
+					break;
+				output.poll();
+			}
+			if(output.isEmpty() && closeAfterOutput)
+				close();
+			else
+				updateInterest();
+		}
+
+		/*
+		 * Handles the complete requests in the input buffer, in order, until a request is held for a round
+		 */
+		private void handleRequests() throws IOException {
+			while(polledRound < 0 && streamedRound < 0 && !closeAfterOutput) {
+				// Request bodies are not used, but are read past so that the next request is parsed from its start
+				if(numBodyBytesToSkip > 0) {
+					int numSkippedBytes = (int) Math.min(numBodyBytesToSkip, input.position());
+					input.flip().position(numSkippedBytes);
+					input.compact();
+					numBodyBytesToSkip -= numSkippedBytes;
+					if(numBodyBytesToSkip > 0)
+						break;
+				}
+
+				int end = findHeaderEnd();
+				if(end < 0) {
+					if(!input.hasRemaining()) {
+						keepAlive = false;
+						respond(431, "Request Header Fields Too Large", null, "no-store", null, null);
+					}
+					break;
+				}
+
+				String header = new String(input.array(), 0, end, StandardCharsets.ISO_8859_1);
+				int position = input.position();
+				input.position(end + 4).limit(position);
+				input.compact();
+				handleRequest(header);
+			}
+			if(key.isValid())
+				write();
+		}
+
+		private int findHeaderEnd() {
+			byte[] bytes = input.array();
+			for(int i = 3; i < input.position(); i++)
+				if(bytes[i] == '\n' && bytes[i - 1] == '\r' && bytes[i - 2] == '\n' && bytes[i - 3] == '\r')
+					return i - 3;
+			return -1;
+		}
+
+		private void handleRequest(String header) throws IOException {
+			String[] lines = header.split("\r\n");
+			String[] parts = lines[0].split(" ");
+			if(parts.length != 3 || !parts[1].startsWith("/") || !parts[2].startsWith("HTTP/1.")) {
+				log.writeToVerboseLogFile("Invalid HTTP request: " + lines[0]);
+				keepAlive = false;
+				respond(400, "Bad Request", null, "no-store", null, null);
+				return;
+			}
+
+			String connectionHeader = getHeader(lines, "Connection");
+			keepAlive = parts[2].equals("HTTP/1.1") ? !"close".equalsIgnoreCase(connectionHeader) : "keep-alive".equalsIgnoreCase(connectionHeader);
+			headRequest = parts[0].equals("HEAD");
+
+			// Chunked bodies are not parsed, so their connections are closed after the response
+			if(getHeader(lines, "Transfer-Encoding") != null)
+				keepAlive = false;
+			String contentLength = getHeader(lines, "Content-Length");
+			if(contentLength != null) {
+				try {
+					numBodyBytesToSkip = Long.parseLong(contentLength);
+				} catch(NumberFormatException e) {
+					numBodyBytesToSkip = -1;
+				}
+				if(numBodyBytesToSkip < 0) {
+					numBodyBytesToSkip = 0;
+					keepAlive = false;
+					respond(400, "Bad Request", null, "no-store", null, null);
+					return;
+				}
+			}
+			if(!parts[0].equals("GET") && !headRequest) {
+				respond(405, "Method Not Allowed", null, "no-store", null, null);
+				return;
+			}
+
+			String path = parts[1].substring(1);
+			String query = "";
+			int queryIndex = path.indexOf('?');
+			if(queryIndex >= 0) {
+				query = path.substring(queryIndex + 1);
+				path = path.substring(0, queryIndex);
+			}
+
+			if(path.equals("data.txt")) {
+				polledRound = 0;
+				for(String parameter : query.split("&"))
+					if(parameter.startsWith("round=")) {
+						try {
+							polledRound = Math.max(0, Integer.parseInt(parameter.substring("round=".length())));
+						} catch(NumberFormatException e) {}
+					}
+				pollDeadline = System.currentTimeMillis() + POLL_TIMEOUT;
+				pollingConnections.add(this);
+				answerPolls();
+				return;
+			}
+
+			if(path.equals("events")) {
+				startEventStream(getHeader(lines, "Last-Event-ID"));
+				return;
+			}
+
+			if(path.equals(""))
+				path = "webpage.html";
+			else if(!Character.isLetter(path.charAt(0)) || path.contains("..")) {
+				log.writeToVerboseLogFile("Potentially malicious HTTP request: \"" + path + "\"");
+				respond(404, "Not Found", null, "no-store", null, null);
+				return;
+			}
+
+			StaticFile staticFile = getStaticFile(path);
+			if(staticFile == null) {
+				respond(404, "Not Found", null, "no-store", null, null);
+				return;
+			}
+
+			String ifModifiedSince = getHeader(lines, "If-Modified-Since");
+			if(ifModifiedSince != null) {
+				try {
+					if(ZonedDateTime.parse(ifModifiedSince, HTTP_DATE_FORMAT).toInstant().toEpochMilli() >= staticFile.lastModified) {
+						respond(304, "Not Modified", null, "no-cache", staticFile.lastModified, null);
+						return;
+					}
+				} catch(DateTimeParseException e) {}
+			}
+			respond(200, "OK", staticFile.contentType, "no-cache", staticFile.lastModified, staticFile.content);
+		}
+
+		/*
+		 * Starts an event stream after the round of the last event received before reconnecting, if any
+		 */
+		private void startEventStream(String lastEventID) {
+			streamedRound = 0;
+			if(lastEventID != null) {
+				try {
+					streamedRound = Math.max(0, Integer.parseInt(lastEventID));
+				} catch(NumberFormatException e) {}
+			}
+
+			StringBuilder header = new StringBuilder();
+			header.append("HTTP/1.1 200 OK\r\n");
+			header.append("Date: ").append(HTTP_DATE_FORMAT.format(Instant.now())).append("\r\n");
+			header.append("Content-Type: text/event-stream; charset=utf-8\r\n");
+			header.append("Cache-Control: no-store\r\n");
+			header.append("Connection: ").append(headRequest ? "close" : "keep-alive").append("\r\n\r\n");
+			if(headRequest)
+				closeAfterOutput = true;
+			else {
+				header.append("retry: 1000\n\n");
+				streamingConnections.add(this);
+			}
+			output.add(ByteBuffer.wrap(header.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+
+		private String getHeader(String[] lines, String name) {
+			for(int i = 1; i < lines.length; i++) {
+				int colonIndex = lines[i].indexOf(':');
+				if(colonIndex > 0 && lines[i].substring(0, colonIndex).trim().equalsIgnoreCase(name))
+					return lines[i].substring(colonIndex + 1).trim();
+			}
+			return null;
+		}
+
+		private void respond(int status, String reason, String contentType, String cacheControl, Long lastModified, byte[] body) {
+			StringBuilder header = new StringBuilder();
+			header.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+			header.append("Date: ").append(HTTP_DATE_FORMAT.format(Instant.now())).append("\r\n");
+			if(contentType != null)
+				header.append("Content-Type: ").append(contentType).append("\r\n");
+			if(lastModified != null)
+				header.append("Last-Modified: ").append(HTTP_DATE_FORMAT.format(Instant.ofEpochMilli(lastModified))).append("\r\n");
+			header.append("Cache-Control: ").append(cacheControl).append("\r\n");
+			if(status != 204 && status != 304)
+				header.append("Content-Length: ").append(body == null ? 0 : body.length).append("\r\n");
+			header.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+
+			output.add(ByteBuffer.wrap(header.toString().getBytes(StandardCharsets.ISO_8859_1)));
+			if(body != null && !headRequest)
+				output.add(ByteBuffer.wrap(body));
+			if(!keepAlive)
+				closeAfterOutput = true;
+		}
+
+		private void updateInterest() {
+			int interestOps = 0;
+			if(!output.isEmpty())
+				interestOps |= SelectionKey.OP_WRITE;
+			if(!closeAfterOutput && input.hasRemaining())
+				interestOps |= SelectionKey.OP_READ;
+			key.interestOps(interestOps);
+		}
+
+		private void close() {
+			pollingConnections.remove(this);
+			streamingConnections.remove(this);
+			key.cancel();
+			try {
+				channel.close();
+			} catch(IOException e) {}
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package sim;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight Recorder event spanning the creation of a game history snapshot
+ */
+@Name("sim.HistorySnapshot")
+@Label("History Snapshot")
+@Category("Retroactive Soccer")
+@StackTrace(false)
+class HistorySnapshotEvent extends Event {
+
+	@Label("Rounds")
+	int numRounds;
+}
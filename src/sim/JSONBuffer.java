@@ -0,0 +1,135 @@
+package sim;
+
+/*
+ * Reusable buffer that JSON is written into as a stream of values, without building a tree of objects.
+ *
+ * Commas between the members of objects and arrays are inserted as values are written; keys and values
+ * must be written in order, and objects and arrays closed in the order they were opened.
+ *
+ */
+class JSONBuffer {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final StringBuilder buffer = new StringBuilder(1 << 12);
+	private boolean needsComma = false;
+
+	/*
+	 * Clears the buffer, keeping its capacity
+	 */
+	JSONBuffer reset() {
+		buffer.setLength(0);
+		needsComma = false;
+		return this;
+	}
+
+	JSONBuffer beginObject() {
+		separate();
+		buffer.append('{');
+		needsComma = false;
+		return this;
+	}
+
+	JSONBuffer endObject() {
+		buffer.append('}');
+		needsComma = true;
+		return this;
+	}
+
+	JSONBuffer beginArray() {
+		separate();
+		buffer.append('[');
+		needsComma = false;
+		return this;
+	}
+
+	JSONBuffer endArray() {
+		buffer.append(']');
+		needsComma = true;
+		return this;
+	}
+
+	JSONBuffer key(String key) {
+		separate();
+		appendString(key);
+		buffer.append(':');
+		needsComma = false;
+		return this;
+	}
+
+	JSONBuffer value(int value) {
+		separate();
+		buffer.append(value);
+		needsComma = true;
+		return this;
+	}
+
+	/*
+	 * Integral values are written without a fraction, as org.json does
+	 */
+	JSONBuffer value(double value) {
+		if(Double.isNaN(value) || Double.isInfinite(value))
+			throw new IllegalArgumentException("JSON does not allow non-finite numbers!");
+		separate();
+		if(value == (long) value)
+			buffer.append((long) value);
+		else
+			buffer.append(value);
+		needsComma = true;
+		return this;
+	}
+
+	JSONBuffer value(boolean value) {
+		separate();
+		buffer.append(value);
+		needsComma = true;
+		return this;
+	}
+
+	JSONBuffer value(String value) {
+		separate();
+		appendString(value);
+		needsComma = true;
+		return this;
+	}
+
+	private void separate() {
+		if(needsComma)
+			buffer.append(',');
+	}
+
+	private void appendString(String string) {
+		buffer.append('"');
+		for(int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			switch(c) {
+			case '"':
+				buffer.append("\\\"");
+				break;
+			case '\\':
+				buffer.append("\\\\");
+				break;
+			case '\n':
+				buffer.append("\\n");
+				break;
+			case '\r':
+				buffer.append("\\r");
+				break;
+			case '\t':
+				buffer.append("\\t");
+				break;
+			default:
+				if(c < 0x20 || c == 0x2028 || c == 0x2029)
+					buffer.append("\\u").append(HEX_DIGITS[c >> 12]).append(HEX_DIGITS[(c >> 8) & 0xF]).append(HEX_DIGITS[(c >> 4) & 0xF]).append(HEX_DIGITS[c & 0xF]);
+				else
+					buffer.append(c);
+			}
+		}
+		buffer.append('"');
+	}
+
+	@Override
+	public String toString() {
+		return buffer.toString();
+	}
+}
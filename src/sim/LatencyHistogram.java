@@ -0,0 +1,77 @@
+package sim;
+
+/*
+ * Histogram of durations in nanoseconds over a fixed set of buckets.
+ *
+ * Buckets are log-linear: each power of two is split into 16 buckets, so a recorded duration is known
+ * to within 1/16 of its value, and durations below 32 ns exactly. Recording is allocation-free and takes
+ * constant time. Durations above about 9.8 hours are recorded as that duration; the mean and the maximum
+ * are exact. A histogram is not thread-safe, so each one must be recorded by a single thread at a time.
+ *
+ */
+class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 44;
+	private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+	private final long[] counts = new long[(MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT];
+	private long count = 0, sum = 0, max = 0;
+
+	void record(long nanos) {
+		long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+		counts[getBucketIndex(value)]++;
+		count++;
+		sum += value;
+		if(value > max)
+			max = value;
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	long getTotal() {
+		return sum;
+	}
+
+	double getMean() {
+		return count == 0 ? Double.NaN : ((double) sum) / count;
+	}
+
+	long getMax() {
+		return max;
+	}
+
+	/*
+	 * Smallest recorded duration that the given percentage of durations do not exceed, rounded up to the end of its bucket
+	 */
+	long getPercentile(double percentile) {
+		if(count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long numCounted = 0;
+		for(int index = 0; index < counts.length; index++) {
+			numCounted += counts[index];
+			if(numCounted >= rank)
+				return Math.min(getBucketUpperBound(index), max);
+		}
+		return max;
+	}
+
+	private static int getBucketIndex(long value) {
+		if(value < SUB_BUCKET_COUNT)
+			return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+	}
+
+	private static long getBucketUpperBound(int index) {
+		if(index < SUB_BUCKET_COUNT)
+			return index;
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
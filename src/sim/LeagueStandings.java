@@ -0,0 +1,101 @@
+package sim;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Points and rankings of a league, kept as running totals over all ranked rounds.
+ *
+ * Each reallocation round is ranked by its points, and cumulative points and average rankings are
+ * updated from the running totals, so a round costs the same whatever the number of rounds before it.
+ * Totals are indexed by team ID.
+ *
+ */
+public class LeagueStandings {
+
+	private final RoundRanker roundRanker;
+	private final int[] roundPoints;
+	private final double[] roundRanks;
+	private final double[] rankSums;
+	private final int[] cumulativePoints;
+	private int numRankedRounds = 0;
+
+	public LeagueStandings(int numTeams) {
+		this.roundRanker = RoundRanker.forNumTeams(numTeams);
+		this.roundPoints = new int[numTeams + 1];
+		this.roundRanks = new double[numTeams + 1];
+		this.rankSums = new double[numTeams + 1];
+		this.cumulativePoints = new int[numTeams + 1];
+	}
+
+	public Map<Integer, PlayerPoints> computeTeamPoints(LeagueState roundState) {
+		Map<Integer, PlayerPoints> roundPointsMap = new HashMap<>();
+		for(int teamID = 1; teamID <= roundState.getNumTeams(); teamID++)
+			roundPointsMap.put(teamID, new PlayerPoints(roundState.getTeamPoints(teamID)));
+		return roundPointsMap;
+	}
+
+	/*
+	 * Adds the points of a round to the cumulative points, and returns the updated cumulative points
+	 */
+	public Map<Integer, PlayerPoints> computeCumulativeTeamPoints(Map<Integer, PlayerPoints> roundPointsMap) {
+		Map<Integer, PlayerPoints> roundCumulativePointsMap = new HashMap<>();
+		for(Map.Entry<Integer, PlayerPoints> newPointsEntry : roundPointsMap.entrySet()) {
+			int teamID = newPointsEntry.getKey();
+			cumulativePoints[teamID] += newPointsEntry.getValue().getTotalPoints();
+			roundCumulativePointsMap.put(teamID, new PlayerPoints(cumulativePoints[teamID]));
+		}
+
+		return roundCumulativePointsMap;
+	}
+
+	public Map<Integer, Double> computeRoundRankings(Map<Integer, PlayerPoints> roundPointsMap) {
+		Map<Integer, Double> rankingsMap = new HashMap<>();
+
+		for(Map.Entry<Integer, PlayerPoints> pointsEntry : roundPointsMap.entrySet())
+			roundPoints[pointsEntry.getKey()] = pointsEntry.getValue().getTotalPoints();
+		roundRanker.computeRanks(roundPoints, roundRanks, 1, roundPoints.length);
+		for(Integer teamID : roundPointsMap.keySet())
+			rankingsMap.put(teamID, roundRanks[teamID]);
+
+		return rankingsMap;
+	}
+
+	/*
+	 * Adds the rankings of a round to the rank sums, and returns the updated average rankings
+	 */
+	public Map<Integer, Double> computeAverageRankings(Map<Integer, Double> roundRankingsMap) {
+		Map<Integer, Double> averageRankingsMap = new HashMap<>();
+
+		// Round ranks are multiples of 0.5, so the running sums are exact regardless of summation order
+		numRankedRounds++;
+		for(Map.Entry<Integer, Double> rankingsEntry : roundRankingsMap.entrySet()) {
+			int teamID = rankingsEntry.getKey();
+			rankSums[teamID] += rankingsEntry.getValue();
+			averageRankingsMap.put(teamID, rankSums[teamID] / numRankedRounds);
+		}
+
+		return averageRankingsMap;
+	}
+
+	public int getNumRankedRounds() {
+		return numRankedRounds;
+	}
+
+	/*
+	 * Copies of the running totals, as stored in checkpoints
+	 */
+	double[] getRankSums() {
+		return rankSums.clone();
+	}
+
+	int[] getCumulativePoints() {
+		return cumulativePoints.clone();
+	}
+
+	void restore(int numRankedRounds, double[] rankSums, int[] cumulativePoints) {
+		this.numRankedRounds = numRankedRounds;
+		System.arraycopy(rankSums, 0, this.rankSums, 0, this.rankSums.length);
+		System.arraycopy(cumulativePoints, 0, this.cumulativePoints, 0, this.cumulativePoints.length);
+	}
+}
@@ -0,0 +1,369 @@
+package sim;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Compact state of all games in a round, stored as a flat goal matrix.
+ *
+ * Entry (teamID, opponentID) holds the number of goals scored by the team against the opponent,
+ * so each game is stored once per side and both sides always agree. Goals are stored as unsigned
+ * bytes, and the matrix is widened to shorts only if a goal count exceeds 255 (leagues with more
+ * than 257 teams, whose random initial round can assign larger goal counts).
+ *
+ * Goals can only be assigned within the simulator, so states shared through the game history
+ * are immutable. List<Game> views are only built at the player API boundary.
+ *
+ */
+public class LeagueState implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int MAX_BYTE_GOALS = 255;
+
+	// A changed entry takes at most 5 bytes for its position and 3 bytes for its goals
+	static final int MAX_CHANGE_BYTES = 8;
+
+	private int numTeams;
+	private byte[] goals;
+	private short[] wideGoals;
+	private transient volatile ReadOnlyGamesMap readOnlyGamesMap;
+
+	public LeagueState(int numTeams) {
+		if(numTeams < 0)
+			throw new IllegalArgumentException("The number of teams cannot be negative!");
+		this.numTeams = numTeams;
+		this.goals = new byte[numTeams * numTeams];
+	}
+
+	public LeagueState(LeagueState leagueState) {
+		this.numTeams = leagueState.numTeams;
+		this.goals = leagueState.goals == null ? null : leagueState.goals.clone();
+		this.wideGoals = leagueState.wideGoals == null ? null : leagueState.wideGoals.clone();
+	}
+
+	/**
+	 * Build a league state from per-team game lists
+	 *
+	 * @param numTeams  number of teams, with team IDs 1 through numTeams
+	 * @param gamesMap  map of team IDs to their games; only the player goals of each game are read
+	 * @return          league state
+	 *
+	 */
+	public static LeagueState fromGamesMap(int numTeams, Map<Integer, List<Game>> gamesMap) {
+		LeagueState leagueState = new LeagueState(numTeams);
+		for(Map.Entry<Integer, List<Game>> gamesEntry : gamesMap.entrySet())
+			for(Game game : gamesEntry.getValue())
+				leagueState.setGoals(gamesEntry.getKey(), game.getID(), game.getNumPlayerGoals());
+		return leagueState;
+	}
+
+	public int getNumTeams() {
+		return numTeams;
+	}
+
+	public int getGoals(int teamID, int opponentID) {
+		return getGoalsAt(indexOf(teamID, opponentID));
+	}
+
+	void setGoals(int teamID, int opponentID, int numGoals) {
+		setGoalsAt(indexOf(teamID, opponentID), numGoals);
+	}
+
+	private int getGoalsAt(int index) {
+		return wideGoals == null ? goals[index] & 0xFF : wideGoals[index];
+	}
+
+	private void setGoalsAt(int index, int numGoals) {
+		if(numGoals < 0 || numGoals > Short.MAX_VALUE)
+			throw new IllegalArgumentException("Invalid number of goals: " + numGoals);
+		if(wideGoals == null && numGoals > MAX_BYTE_GOALS) {
+			wideGoals = new short[goals.length];
+			for(int i = 0; i < goals.length; i++)
+				wideGoals[i] = (short) (goals[i] & 0xFF);
+			goals = null;
+		}
+		if(wideGoals == null)
+			goals[index] = (byte) numGoals;
+		else
+			wideGoals[index] = (short) numGoals;
+	}
+
+	public int getTeamPoints(int teamID) {
+		int numPoints = 0;
+		for(int opponentID = 1; opponentID <= numTeams; opponentID++) {
+			if(opponentID == teamID)
+				continue;
+			int numPlayerGoals = getGoals(teamID, opponentID);
+			int numOpponentGoals = getGoals(opponentID, teamID);
+			if(numPlayerGoals > numOpponentGoals)
+				numPoints += PlayerPoints.getWinPointValue();
+			else if(numPlayerGoals < numOpponentGoals)
+				numPoints += PlayerPoints.getLossPointValue();
+			else
+				numPoints += PlayerPoints.getDrawPointValue();
+		}
+		return numPoints;
+	}
+
+	public int getNumWins(int teamID) {
+		int numWins = 0;
+		for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+			if(opponentID != teamID && getGoals(teamID, opponentID) > getGoals(opponentID, teamID))
+				numWins++;
+		return numWins;
+	}
+
+	public int getNumLosses(int teamID) {
+		int numLosses = 0;
+		for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+			if(opponentID != teamID && getGoals(teamID, opponentID) < getGoals(opponentID, teamID))
+				numLosses++;
+		return numLosses;
+	}
+
+	public int getNumDraws(int teamID) {
+		int numDraws = 0;
+		for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+			if(opponentID != teamID && getGoals(teamID, opponentID) == getGoals(opponentID, teamID))
+				numDraws++;
+		return numDraws;
+	}
+
+	public int getNumGoalsFor(int teamID) {
+		int numGoals = 0;
+		for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+			if(opponentID != teamID)
+				numGoals += getGoals(teamID, opponentID);
+		return numGoals;
+	}
+
+	public int getNumGoalsAgainst(int teamID) {
+		int numGoals = 0;
+		for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+			if(opponentID != teamID)
+				numGoals += getGoals(opponentID, teamID);
+		return numGoals;
+	}
+
+	/**
+	 * Build modifiable games for a team, ordered by opponent team ID
+	 *
+	 * @param teamID  team ID
+	 * @return        new list of new games
+	 *
+	 */
+	public List<Game> getTeamGames(int teamID) {
+		List<Game> teamGames = new ArrayList<>(Math.max(numTeams - 1, 0));
+		for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+			if(opponentID != teamID)
+				teamGames.add(new Game(opponentID, new Score(getGoals(teamID, opponentID), getGoals(opponentID, teamID))));
+		return teamGames;
+	}
+
+	public Map<Integer, List<Game>> getGamesMap() {
+		Map<Integer, List<Game>> gamesMap = new HashMap<>();
+		for(int teamID = 1; teamID <= numTeams; teamID++)
+			gamesMap.put(teamID, getTeamGames(teamID));
+		return gamesMap;
+	}
+
+	/*
+	 * Read-only view of the games of all teams, whose team game lists are built on first access.
+	 * The view is kept with the state, so it must only be requested once the state is no longer modified.
+	 */
+	Map<Integer, List<Game>> getReadOnlyGamesMap() {
+		ReadOnlyGamesMap gamesMap = readOnlyGamesMap;
+		if(gamesMap == null)
+			readOnlyGamesMap = gamesMap = new ReadOnlyGamesMap();
+		return gamesMap;
+	}
+
+	private List<Game> getReadOnlyTeamGames(int teamID) {
+		List<Game> teamGames = new ArrayList<>(Math.max(numTeams - 1, 0));
+		for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+			if(opponentID != teamID)
+				teamGames.add(new ReadOnlyGame(opponentID, getGoals(teamID, opponentID), getGoals(opponentID, teamID)));
+		return Collections.unmodifiableList(teamGames);
+	}
+
+	/*
+	 * Size of the goal matrix in bytes, which bounds the size of any change set worth storing
+	 */
+	int getMatrixSize() {
+		return wideGoals == null ? goals.length : 2 * wideGoals.length;
+	}
+
+	/**
+	 * Encode the goals that differ from a previous state of the league
+	 *
+	 * Each changed entry of the goal matrix is written as two unsigned varints: the number of unchanged
+	 * entries since the previous change, and the new number of goals. The buffer must have room for
+	 * MAX_CHANGE_BYTES past the limit.
+	 *
+	 * @param previousState  previous state of the league, with the same number of teams
+	 * @param buffer         buffer receiving the changes
+	 * @param position       position in the buffer at which to write the changes
+	 * @param limit          position in the buffer that the changes must not exceed
+	 * @return               position after the changes, or -1 if the changes would exceed the limit
+	 *
+	 */
+	int writeChanges(LeagueState previousState, byte[] buffer, int position, int limit) {
+		if(previousState.numTeams != numTeams)
+			throw new IllegalArgumentException("The previous state has " + previousState.numTeams + " teams instead of " + numTeams + "!");
+
+		int lastIndex = -1;
+		for(int index = 0; index < numTeams * numTeams; index++) {
+			int numGoals = getGoalsAt(index);
+			if(numGoals == previousState.getGoalsAt(index))
+				continue;
+			if(position > limit)
+				return -1;
+			position = writeVarint(buffer, position, index - lastIndex - 1);
+			position = writeVarint(buffer, position, numGoals);
+			lastIndex = index;
+		}
+		return position > limit ? -1 : position;
+	}
+
+	/*
+	 * Applies changes written by writeChanges, turning the previous state into the state they were encoded from
+	 */
+	void applyChanges(byte[] buffer, int position, int end) {
+		int index = -1;
+		while(position < end) {
+			int numSkipped = 0, numGoals = 0;
+			for(int shift = 0; ; shift += 7) {
+				byte b = buffer[position++];
+				numSkipped |= (b & 0x7F) << shift;
+				if(b >= 0)
+					break;
+			}
+			for(int shift = 0; ; shift += 7) {
+				byte b = buffer[position++];
+				numGoals |= (b & 0x7F) << shift;
+				if(b >= 0)
+					break;
+			}
+			index += numSkipped + 1;
+			if(index >= numTeams * numTeams)
+				throw new IllegalArgumentException("The changes do not fit a league of " + numTeams + " teams!");
+			setGoalsAt(index, numGoals);
+		}
+	}
+
+	private static int writeVarint(byte[] buffer, int position, int value) {
+		while((value & ~0x7F) != 0) {
+			buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+		return position;
+	}
+
+	private int indexOf(int teamID, int opponentID) {
+		if(teamID < 1 || teamID > numTeams || opponentID < 1 || opponentID > numTeams)
+			throw new IndexOutOfBoundsException("Invalid game between teams " + teamID + " and " + opponentID + "!");
+		return (teamID - 1) * numTeams + (opponentID - 1);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj)
+			return true;
+		if(!(obj instanceof LeagueState))
+			return false;
+
+		LeagueState leagueState = (LeagueState) obj;
+		if(numTeams != leagueState.numTeams)
+			return false;
+		if(wideGoals == null && leagueState.wideGoals == null)
+			return Arrays.equals(goals, leagueState.goals);
+		for(int teamID = 1; teamID <= numTeams; teamID++)
+			for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+				if(getGoals(teamID, opponentID) != leagueState.getGoals(teamID, opponentID))
+					return false;
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = numTeams;
+		for(int teamID = 1; teamID <= numTeams; teamID++)
+			for(int opponentID = 1; opponentID <= numTeams; opponentID++)
+				hash = 31 * hash + getGoals(teamID, opponentID);
+		return hash;
+	}
+
+	private class ReadOnlyGamesMap extends AbstractMap<Integer, List<Game>> {
+
+		// Players of parallel rounds may share the view, so team game lists are published atomically
+		private final AtomicReferenceArray<List<Game>> teamGamesList = new AtomicReferenceArray<>(numTeams);
+		private Set<Map.Entry<Integer, List<Game>>> entrySet;
+
+		@Override
+		public int size() {
+			return numTeams;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof Integer && (Integer) key >= 1 && (Integer) key <= numTeams;
+		}
+
+		@Override
+		public List<Game> get(Object key) {
+			if(!containsKey(key))
+				return null;
+			int teamID = (Integer) key;
+			List<Game> teamGames = teamGamesList.get(teamID - 1);
+			if(teamGames == null && !teamGamesList.compareAndSet(teamID - 1, null, teamGames = getReadOnlyTeamGames(teamID)))
+				teamGames = teamGamesList.get(teamID - 1);
+			return teamGames;
+		}
+
+		@Override
+		public Set<Map.Entry<Integer, List<Game>>> entrySet() {
+			if(entrySet == null)
+				entrySet = new AbstractSet<Map.Entry<Integer, List<Game>>>() {
+					@Override
+					public int size() {
+						return numTeams;
+					}
+
+					@Override
+					public Iterator<Map.Entry<Integer, List<Game>>> iterator() {
+						return new Iterator<Map.Entry<Integer, List<Game>>>() {
+							private int teamID = 1;
+
+							@Override
+							public boolean hasNext() {
+								return teamID <= numTeams;
+							}
+
+							@Override
+							public Map.Entry<Integer, List<Game>> next() {
+								if(teamID > numTeams)
+									throw new NoSuchElementException();
+								Map.Entry<Integer, List<Game>> entry = new AbstractMap.SimpleImmutableEntry<>(teamID, get(teamID));
+								teamID++;
+								return entry;
+							}
+						};
+					}
+				};
+			return entrySet;
+		}
+	}
+}
@@ -1,76 +1,255 @@
 package sim;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+/*
+ * Log that hands timestamped entries to a background writer thread through a bounded ring buffer.
+ *
+ * Callers only record the time and enqueue the content, blocking if the buffer is full, so the
+ * output is never dropped. The writer thread formats timestamps (reusing the last one within the
+ * same millisecond), prints each batch of entries to the console and the log file, and flushes
+ * once per batch. Closing the log drains all pending entries; entries logged after that are
+ * written directly to the console, and to the log file while it is still open.
+ *
+ */
 public class Log {
 
-	private static FileWriter fileWriter;
-	private static boolean isVerbose = false;
-	private static boolean shouldLog = false;
-	
-	public static void setLogFile(String filename) {
+	private static final int BUFFER_CAPACITY = 4096;
+	private static final DateTimeFormatter TIMESTAMP_FORMAT =
+			DateTimeFormatter.ofPattern("'['yyyy/MM/dd HH:mm:ss.SSS'] '").withZone(ZoneId.systemDefault());
+
+	private Writer fileWriter;
+	private volatile boolean isVerbose = false;
+	private volatile boolean shouldLog = false;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final long[] entryTimes = new long[BUFFER_CAPACITY];
+	private final String[] entryContents = new String[BUFFER_CAPACITY];
+	private int head = 0, numEntries = 0;
+	private boolean closing = false;
+	private Thread writerThread;
+
+	// Only used by the writer thread
+	private long lastTimestampMillis = Long.MIN_VALUE;
+	private String lastTimestamp;
+
+	public void setLogFile(String filename) {
 		try {
-			fileWriter = new FileWriter(filename, false);
+			fileWriter = new BufferedWriter(new FileWriter(filename, false));
 		} catch(IOException e) {
 			e.printStackTrace();
 		}
 	}
 
-	public static void assignVerbosityStatus(boolean isVerbose) {
-		Log.isVerbose = isVerbose;
+	public void assignVerbosityStatus(boolean isVerbose) {
+		this.isVerbose = isVerbose;
 	}
 
-	public static boolean getVerbosityStatus() {
-		return Log.isVerbose;
+	public boolean getVerbosityStatus() {
+		return this.isVerbose;
 	}
-	
-	public static void assignLoggingStatus(boolean shouldLog) {
-		Log.shouldLog = shouldLog;
+
+	public void assignLoggingStatus(boolean shouldLog) {
+		this.shouldLog = shouldLog;
 	}
-	
-	public static boolean getLoggingStatus() {
-		return Log.shouldLog;
+
+	public boolean getLoggingStatus() {
+		return this.shouldLog;
 	}
-	
-	public static void writeToVerboseLogFile(String content) {
+
+	public void writeToVerboseLogFile(String content) {
 		if(isVerbose)
 			writeToLogFile(content);
 	}
-	
-	public static void writeToLogFile(String content) {
+
+	/*
+	 * Content suppliers are only called if the content would be written
+	 */
+	public void writeToVerboseLogFile(Supplier<String> contentSupplier) {
+		if(isVerbose && shouldLog)
+			writeToLogFile(contentSupplier.get());
+	}
+
+	public void writeLinesToVerboseLogFile(Supplier<? extends Iterable<String>> linesSupplier) {
+		if(isVerbose)
+			writeLinesToLogFile(linesSupplier);
+	}
+
+	public void writeLinesToLogFile(Supplier<? extends Iterable<String>> linesSupplier) {
 		if(!shouldLog)
 			return;
-		
-		DateFormat dateFormat = new SimpleDateFormat("[yyyy/MM/dd HH:mm:ss.SSS] ");
-		Date date = new Date();
-		
-		String datedContent = dateFormat.format(date) + content + "\n";
-		System.out.println(datedContent);
-
-		if(fileWriter == null)
+		for(String line : linesSupplier.get())
+			writeToLogFile(line);
+	}
+
+	public void writeToLogFile(String content) {
+		if(!shouldLog)
 			return;
 
+		long time = System.currentTimeMillis();
+		Thread thread;
+		lock.lock();
 		try {
-			fileWriter.append(datedContent);
+			if(!closing) {
+				if(writerThread == null)
+					startWriterThread();
+				while(numEntries == BUFFER_CAPACITY)
+					notFull.awaitUninterruptibly();
+
+				int tail = (head + numEntries) % BUFFER_CAPACITY;
+				entryTimes[tail] = time;
+				entryContents[tail] = content;
+				numEntries++;
+				notEmpty.signal();
+				return;
+			}
+			thread = writerThread;
+		} finally {
+			lock.unlock();
+		}
+
+		// Once the log is closing, entries are written directly, after the pending entries
+		joinWriterThread(thread);
+		lock.lock();
+		try {
+			String datedContent = TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(time)) + content + "\n";
+			System.out.print(datedContent + System.lineSeparator());
+			System.out.flush();
+			if(fileWriter != null) {
+				fileWriter.append(datedContent);
+				fileWriter.flush();
+			}
 		} catch(IOException e) {
 			e.printStackTrace();
-		}		
+		} finally {
+			lock.unlock();
+		}
 	}
 
-	public static void closeLogFile() {
-		if(fileWriter == null)
-			return;
+	public void closeLogFile() {
+		Thread thread;
+		lock.lock();
+		try {
+			closing = true;
+			thread = writerThread;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+
+		joinWriterThread(thread);
 
+		lock.lock();
 		try {
-			fileWriter.close();
-		} catch(IOException e) {
-			e.printStackTrace();
+			if(fileWriter == null)
+				return;
+
+			try {
+				fileWriter.close();
+			} catch(IOException e) {
+				e.printStackTrace();
+			}
+
+			fileWriter = null;
+		} finally {
+			lock.unlock();
 		}
+	}
 
-		fileWriter = null;
+	private static void joinWriterThread(Thread thread) {
+		if(thread == null)
+			return;
+
+		boolean interrupted = false;
+		while(thread.isAlive()) {
+			try {
+				thread.join();
+			} catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if(interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	private void startWriterThread() {
+		writerThread = new Thread(this::writeEntries, "log-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	private void writeEntries() {
+		long[] batchTimes = new long[BUFFER_CAPACITY];
+		String[] batchContents = new String[BUFFER_CAPACITY];
+		StringBuilder consoleOutput = new StringBuilder();
+		while(true) {
+			int batchSize;
+			boolean lastBatch;
+			lock.lock();
+			try {
+				while(numEntries == 0 && !closing)
+					notEmpty.awaitUninterruptibly();
+				batchSize = numEntries;
+				for(int i = 0; i < batchSize; i++) {
+					int index = (head + i) % BUFFER_CAPACITY;
+					batchTimes[i] = entryTimes[index];
+					batchContents[i] = entryContents[index];
+					entryContents[index] = null;
+				}
+				head = (head + batchSize) % BUFFER_CAPACITY;
+				numEntries = 0;
+				lastBatch = closing;
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+
+			consoleOutput.setLength(0);
+			for(int i = 0; i < batchSize; i++) {
+				String datedContent = formatTimestamp(batchTimes[i]) + batchContents[i] + "\n";
+				batchContents[i] = null;
+				consoleOutput.append(datedContent).append(System.lineSeparator());
+				if(fileWriter != null) {
+					try {
+						fileWriter.append(datedContent);
+					} catch(IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+			if(batchSize > 0) {
+				System.out.print(consoleOutput);
+				System.out.flush();
+				if(fileWriter != null) {
+					try {
+						fileWriter.flush();
+					} catch(IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+
+			if(lastBatch)
+				return;
+		}
+	}
+
+	private String formatTimestamp(long time) {
+		if(time != lastTimestampMillis) {
+			lastTimestamp = TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(time));
+			lastTimestampMillis = time;
+		}
+		return lastTimestamp;
 	}
-}
\ No newline at end of file
+}
@@ -28,6 +28,15 @@ public abstract class Player {
         this.random = new Random(seed);
         this.simPrinter = simPrinter;        
 	}
+
+    /**
+     * Player constructor used when a player that implements Serializable is restored from a checkpoint
+     *
+     * The fields of this class are not serialized, so the simulator sets them after deserialization.
+     *
+     */
+    protected Player() {
+    }
 	
 	/*
 	 * Check if the following constraints are satisfied:
@@ -46,56 +55,102 @@ public abstract class Player {
 	 */
 	public static boolean checkConstraintsSatisfied(List<Game> originalPlayerGames, List<Game> reallocatedPlayerGames) {
 		
-		Map<Integer, Game> originalPlayerGamesMap = new HashMap<>();
-		for(Game originalPlayerGame : originalPlayerGames)
-			originalPlayerGamesMap.put(originalPlayerGame.getID(), originalPlayerGame);
-		Map<Integer, Game> reallocatedPlayerGamesMap = new HashMap<>();
-		for(Game reallocatedPlayerGame : reallocatedPlayerGames)
-			reallocatedPlayerGamesMap.put(reallocatedPlayerGame.getID(), reallocatedPlayerGame);
+		// Games are usually reallocated in place, so a lookup map is only needed if the game IDs do not line up
+		Map<Integer, Game> reallocatedPlayerGamesMap = null;
+		if(!haveAlignedGameIDs(originalPlayerGames, reallocatedPlayerGames)) {
+			reallocatedPlayerGamesMap = new HashMap<>();
+			for(Game reallocatedPlayerGame : reallocatedPlayerGames)
+				reallocatedPlayerGamesMap.put(reallocatedPlayerGame.getID(), reallocatedPlayerGame);
+		}
 		
-		int totalNumOriginalPlayerGoals = 0, totalNumReallocatedPlayerGoals = 0;
-		for(Game originalPlayerGame : originalPlayerGames) {			
-			if(!reallocatedPlayerGamesMap.containsKey(originalPlayerGame.getID()))
+		int numGames = originalPlayerGames.size();
+		int[] originalPlayerGoals = new int[numGames];
+		int[] reallocatedPlayerGoals = new int[numGames];
+		int[] opponentGoals = new int[numGames];
+		int numMatchedGames = 0;
+		for(int i = 0; i < numGames; i++) {
+			Game originalPlayerGame = originalPlayerGames.get(i);
+			Game reallocatedPlayerGame = reallocatedPlayerGamesMap == null ? 
+					reallocatedPlayerGames.get(i) : reallocatedPlayerGamesMap.get(originalPlayerGame.getID());
+			if(reallocatedPlayerGame == null)
 				continue;
-			Game reallocatedPlayerGame = reallocatedPlayerGamesMap.get(originalPlayerGame.getID());
-			boolean isOriginalWinningGame = hasWonGame(originalPlayerGame);
-			boolean isOriginalLosingGame = hasLostGame(originalPlayerGame);
-			boolean isOriginalDrawnGame = hasDrawnGame(originalPlayerGame);
-			
-			// Constraint 1
-			if(reallocatedPlayerGame.getNumPlayerGoals() < 0 || reallocatedPlayerGame.getNumPlayerGoals() > Game.getMaxGoalThreshold())
-				return false;
 
 			// Constraint 2
 			if(!originalPlayerGame.getNumOpponentGoals().equals(reallocatedPlayerGame.getNumOpponentGoals()))
 				return false;
+
+			originalPlayerGoals[numMatchedGames] = originalPlayerGame.getNumPlayerGoals();
+			reallocatedPlayerGoals[numMatchedGames] = reallocatedPlayerGame.getNumPlayerGoals();
+			opponentGoals[numMatchedGames] = originalPlayerGame.getNumOpponentGoals();
+			numMatchedGames++;
+		}
 		
-			// Constraint 3
-			boolean numPlayerGoalsIncreased = reallocatedPlayerGame.getNumPlayerGoals() > originalPlayerGame.getNumPlayerGoals();
-			if(isOriginalWinningGame && numPlayerGoalsIncreased)
-				return false;
+		return checkConstraintsSatisfied(originalPlayerGoals, reallocatedPlayerGoals, opponentGoals, 0, numMatchedGames);
+	}
+
+	public static boolean checkConstraintsSatisfied(int[] originalPlayerGoals, int[] reallocatedPlayerGoals, int[] opponentGoals) {
+		return checkConstraintsSatisfied(originalPlayerGoals, reallocatedPlayerGoals, opponentGoals, 0, originalPlayerGoals.length);
+	}
 
-			// Constraint 4
-			int halfNumPlayerGoals = originalPlayerGame.getHalfNumPlayerGoals();
-			boolean numReallocatedPlayerGoalsLessThanHalf = 
-					reallocatedPlayerGame.getNumPlayerGoals() < (originalPlayerGame.getNumPlayerGoals() - halfNumPlayerGoals);
-			if((isOriginalWinningGame || isOriginalDrawnGame) && numReallocatedPlayerGoalsLessThanHalf)
+	/*
+	 * Check constraints 1 and 3 through 6 over primitive goal arrays, without allocating
+	 * 
+	 * Index i of each array describes the same game. Opponent goals are shared by the original and 
+	 * reallocated games, so constraint 2 must be checked by the caller.
+	 * 
+	 * @param originalPlayerGoals     player goals of each game before reallocation
+	 * @param reallocatedPlayerGoals  player goals of each game after reallocation
+	 * @param opponentGoals           opponent goals of each game
+	 * @param fromIndex               first game index, inclusive
+	 * @param toIndex                 last game index, exclusive
+	 * @return                        constraints are satisfied
+	 * 
+	 */
+	public static boolean checkConstraintsSatisfied(int[] originalPlayerGoals, int[] reallocatedPlayerGoals, int[] opponentGoals, int fromIndex, int toIndex) {
+		int maxGoalThreshold = Game.getMaxGoalThreshold();
+		int netNumReallocatedPlayerGoals = 0;
+		for(int i = fromIndex; i < toIndex; i++) {
+			int numOriginalPlayerGoals = originalPlayerGoals[i];
+			int numReallocatedPlayerGoals = reallocatedPlayerGoals[i];
+			int numOpponentGoals = opponentGoals[i];
+			
+			// Constraint 1
+			if(numReallocatedPlayerGoals < 0 || numReallocatedPlayerGoals > maxGoalThreshold)
+				return false;
+			
+			// Constraint 3
+			if(numOriginalPlayerGoals > numOpponentGoals && numReallocatedPlayerGoals > numOriginalPlayerGoals)
 				return false;
 			
-			totalNumOriginalPlayerGoals += originalPlayerGame.getNumPlayerGoals();
-			totalNumReallocatedPlayerGoals += reallocatedPlayerGame.getNumPlayerGoals();
+			// Constraint 4: goals minus half the goals rounded up is half the goals rounded down
+			if(numOriginalPlayerGoals >= numOpponentGoals && numReallocatedPlayerGoals < Math.floorDiv(numOriginalPlayerGoals, 2))
+				return false;
 			
 			// Constraint 5
-			boolean numPlayerGoalsDecreased = reallocatedPlayerGame.getNumPlayerGoals() < originalPlayerGame.getNumPlayerGoals();
-			if(isOriginalLosingGame && numPlayerGoalsDecreased)
+			if(numOriginalPlayerGoals < numOpponentGoals && numReallocatedPlayerGoals < numOriginalPlayerGoals)
 				return false;
 			
+			netNumReallocatedPlayerGoals += numReallocatedPlayerGoals - numOriginalPlayerGoals;
 		}
 		
 		// Constraint 6
-		if(totalNumOriginalPlayerGoals != totalNumReallocatedPlayerGoals)
+		return netNumReallocatedPlayerGoals == 0;
+	}
+	
+	private static boolean haveAlignedGameIDs(List<Game> originalPlayerGames, List<Game> reallocatedPlayerGames) {
+		if(originalPlayerGames.size() != reallocatedPlayerGames.size())
 			return false;
-			
+		
+		// Strictly increasing IDs also rule out duplicates, which the lookup map would resolve to the last game
+		Integer previousGameID = null;
+		for(int i = 0; i < originalPlayerGames.size(); i++) {
+			Integer gameID = originalPlayerGames.get(i).getID();
+			if(gameID == null || !gameID.equals(reallocatedPlayerGames.get(i).getID()))
+				return false;
+			if(previousGameID != null && gameID <= previousGameID)
+				return false;
+			previousGameID = gameID;
+		}
 		return true;
 	}
 
@@ -0,0 +1,352 @@
+package sim;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/*
+ * Compiles and loads team players through a compile cache.
+ *
+ * The classes of a group package are compiled into a cache directory named after a hash of the group's
+ * sources, the simulator's sources, the class path, and the Java version, so unchanged players load
+ * straight from the cached classes, whatever their timestamps, and a changed file only recompiles its
+ * own group. Cached classes are loaded by a class loader of their own, which prefers them over any
+ * classes of the group package on the class path. Each compiled group is loaded once per JVM, so all
+ * simulations of a tournament share its classes. Compiling a group prunes the cached classes of its
+ * earlier sources, so the cache does not grow with every edit.
+ *
+ */
+public class PlayerLoader {
+
+	static final String CACHE_DIRECTORY_NAME = ".player-cache";
+	static final Pattern PLAYER_NAME_PATTERN = Pattern.compile("[A-Za-z0-9_]+");
+
+	// Loaders of compiled groups, keyed by group and source hash
+	private static final Map<String, Future<ClassLoader>> groupLoadersMap = new ConcurrentHashMap<>();
+
+	// Digests of source files, reused while their size and timestamp are unchanged
+	private static final Map<File, FileDigest> fileDigestsMap = new ConcurrentHashMap<>();
+
+	private String sourcePath;
+	private File cacheDirectory;
+
+	public PlayerLoader(String sourcePath) {
+		this.sourcePath = sourcePath;
+		this.cacheDirectory = new File(sourcePath, CACHE_DIRECTORY_NAME);
+	}
+
+	/**
+	 * Compile the groups of the given players that are not in the compile cache, in parallel
+	 *
+	 * Compilation errors are reported when the players are loaded.
+	 *
+	 * @param playerNames  player names, i.e., group package names
+	 * @param log          log
+	 *
+	 */
+	public void compilePlayers(Collection<String> playerNames, Log log) {
+		Set<String> groupNames = new LinkedHashSet<>(playerNames);
+		ExecutorService compileExecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(groupNames.size(), Runtime.getRuntime().availableProcessors())));
+		try {
+			List<Future<ClassLoader>> groupLoaders = new ArrayList<>();
+			for(String groupName : groupNames) {
+				try {
+					groupLoaders.add(getGroupLoader(groupName, log, compileExecutor));
+				} catch(IOException e) {}
+			}
+			for(Future<ClassLoader> groupLoader : groupLoaders) {
+				try {
+					groupLoader.get();
+				} catch(ExecutionException e) {}
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			compileExecutor.shutdown();
+		}
+	}
+
+	public Player loadPlayer(String playerName, int teamID, int rounds, int seed, SimPrinter simPrinter, Log log) throws IOException, ClassNotFoundException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+        Class<?> playerClass = loadPlayerClass(playerName, log);
+        return (Player) playerClass.getDeclaredConstructor(Integer.class, Integer.class, Integer.class, SimPrinter.class).newInstance(teamID, rounds, seed, simPrinter);
+    }
+
+	/**
+	 * Compile the group of a player unless it is in the compile cache, and load its player class
+	 *
+	 * @param playerName  player name, i.e., group package name
+	 * @param log         log
+	 * @return            player class of the group
+	 *
+	 */
+	public Class<?> loadPlayerClass(String playerName, Log log) throws IOException, ClassNotFoundException {
+		Future<ClassLoader> groupLoader = getGroupLoader(playerName, log, Runnable::run);
+		ClassLoader loader;
+		try {
+			loader = groupLoader.get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compiling team " + playerName + "!", e);
+		} catch(ExecutionException e) {
+			groupLoadersMap.values().remove(groupLoader);
+			if(e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("Unable to compile team " + playerName + "!", e.getCause());
+		}
+
+		return loader.loadClass(playerName + ".Player");
+	}
+
+	/*
+	 * Loader of a group's current sources, compiling them on the executor unless they are being compiled, or have already been
+	 */
+	private Future<ClassLoader> getGroupLoader(String playerName, Log log, Executor executor) throws IOException {
+		// Group names come from requests too, so only direct child directories of the source path are compiled
+		if(!PLAYER_NAME_PATTERN.matcher(playerName).matches())
+			throw new FileNotFoundException("Invalid team name " + playerName + "!");
+		File playerPackageDirectory = new File(sourcePath, playerName);
+		if(!playerPackageDirectory.isDirectory() ||
+		   !playerPackageDirectory.getCanonicalFile().getParentFile().equals(new File(sourcePath).getCanonicalFile()))
+			throw new FileNotFoundException("Cannot find the package of team " + playerName + "!");
+
+		String sourceHash = hashSources(playerName);
+		String key = playerName + File.separator + sourceHash;
+		FutureTask<ClassLoader> groupLoaderTask = new FutureTask<>(() -> loadGroup(playerName, sourceHash, log));
+		Future<ClassLoader> groupLoader = groupLoadersMap.putIfAbsent(key, groupLoaderTask);
+		if(groupLoader != null)
+			return groupLoader;
+
+		executor.execute(groupLoaderTask);
+		return groupLoaderTask;
+	}
+
+	private ClassLoader loadGroup(String playerName, String sourceHash, Log log) throws IOException {
+		File groupCacheDirectory = new File(cacheDirectory, playerName);
+		File classDirectory = new File(groupCacheDirectory, sourceHash);
+		File classFile = new File(classDirectory, playerName + File.separator + "Player.class");
+		if(!classFile.exists()) {
+			JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+			if(compiler == null)
+				throw new IOException("Cannot find the Java compiler!");
+
+			log.writeToLogFile("Compiling for team " + playerName + "...");
+			Files.createDirectories(groupCacheDirectory.toPath());
+			Path temporaryDirectory = Files.createTempDirectory(groupCacheDirectory.toPath(), sourceHash + ".tmp");
+			try {
+				List<String> options = Arrays.asList("-d", temporaryDirectory.toString(), "-classpath", System.getProperty("java.class.path"), "-implicit:none");
+				Set<File> playerFiles = getFilesInDirectory(sourcePath + File.separator + playerName, ".java");
+				try(StandardJavaFileManager manager = compiler.getStandardFileManager(null, null, null)) {
+					if(!compiler.getTask(null, manager, null, options, null, manager.getJavaFileObjectsFromFiles(playerFiles)).call())
+						throw new IOException("The compilation failed!");
+				}
+				if(!Files.exists(temporaryDirectory.resolve(playerName).resolve("Player.class")))
+					throw new FileNotFoundException("The class file is missing!");
+
+				// Entries whose class files were deleted are replaced
+				deleteDirectory(classDirectory.toPath());
+				try {
+					try {
+						Files.move(temporaryDirectory, classDirectory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+					} catch(AtomicMoveNotSupportedException e) {
+						Files.move(temporaryDirectory, classDirectory.toPath());
+					}
+				} catch(IOException e) {
+					// Another simulator may have cached the same sources in the meantime
+					if(!classFile.exists())
+						throw e;
+				}
+			} finally {
+				deleteDirectory(temporaryDirectory);
+			}
+			pruneGroupCache(playerName, sourceHash, groupCacheDirectory, log);
+		}
+		else
+			log.writeToVerboseLogFile("Team " + playerName + " is loaded from the compile cache.");
+
+		ClassLoader parentLoader = PlayerLoader.class.getClassLoader();
+		if(parentLoader == null)
+			throw new IOException("Cannot find the Java class loader!");
+		return new GroupClassLoader(playerName, classDirectory, parentLoader);
+	}
+
+	/*
+	 * Deletes the cached classes of a group's earlier sources. Classes of loaders created by this JVM may still
+	 * be loaded by running simulations, so they are only retired now and pruned by the group's next compile.
+	 */
+	private void pruneGroupCache(String playerName, String sourceHash, File groupCacheDirectory, Log log) {
+		String keyPrefix = playerName + File.separator;
+		Set<String> liveSourceHashes = new HashSet<>();
+		for(String key : groupLoadersMap.keySet())
+			if(key.startsWith(keyPrefix))
+				liveSourceHashes.add(key.substring(keyPrefix.length()));
+		groupLoadersMap.keySet().removeIf(key -> key.startsWith(keyPrefix) && !key.equals(keyPrefix + sourceHash));
+
+		File[] classDirectories = groupCacheDirectory.listFiles();
+		if(classDirectories == null)
+			return;
+		for(File classDirectory : classDirectories) {
+			// Temporary directories may belong to compiles still in progress
+			String name = classDirectory.getName();
+			if(name.equals(sourceHash) || liveSourceHashes.contains(name) || name.contains(".tmp"))
+				continue;
+			try {
+				deleteDirectory(classDirectory.toPath());
+			} catch(IOException e) {
+				log.writeToVerboseLogFile("Unable to prune the compile cache of team " + playerName + ": " + e);
+			}
+		}
+	}
+
+	/*
+	 * Hash of everything the compiled classes of a group depend on
+	 */
+	private String hashSources(String playerName) throws IOException {
+		MessageDigest digest = newDigest();
+		digest.update(("java " + Runtime.version().feature() + "\n").getBytes(StandardCharsets.UTF_8));
+		digest.update(("classpath " + System.getProperty("java.class.path") + "\n").getBytes(StandardCharsets.UTF_8));
+		for(String packageName : new String[]{playerName, "sim"}) {
+			File packageDirectory = new File(sourcePath, packageName);
+			List<File> sourceFiles = new ArrayList<>(getFilesInDirectory(packageDirectory.getPath(), ".java"));
+			sourceFiles.sort(Comparator.comparing(File::getPath));
+			for(File sourceFile : sourceFiles) {
+				String relativePath = packageDirectory.toPath().relativize(sourceFile.toPath()).toString();
+				digest.update((packageName + File.separator + relativePath + "\n").getBytes(StandardCharsets.UTF_8));
+				digest.update(getFileDigest(sourceFile));
+			}
+		}
+
+		StringBuilder hash = new StringBuilder();
+		for(byte b : digest.digest())
+			hash.append(String.format("%02x", b));
+		return hash.toString();
+	}
+
+	private static byte[] getFileDigest(File file) throws IOException {
+		long lastModified = file.lastModified(), length = file.length();
+		FileDigest fileDigest = fileDigestsMap.get(file);
+		if(fileDigest == null || fileDigest.lastModified != lastModified || fileDigest.length != length) {
+			fileDigest = new FileDigest(lastModified, length, newDigest().digest(Files.readAllBytes(file.toPath())));
+			fileDigestsMap.put(file, fileDigest);
+		}
+		return fileDigest.digest;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available!", e);
+		}
+	}
+
+	private static void deleteDirectory(Path directory) throws IOException {
+		if(!Files.exists(directory))
+			return;
+		try(Stream<Path> paths = Files.walk(directory)) {
+			for(Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+				Files.deleteIfExists(path);
+		}
+	}
+
+	private static Set<File> getFilesInDirectory(String path, String extension) {
+		Set<File> files = new HashSet<File>();
+        Set<File> previousDirectories = new HashSet<File>();
+        previousDirectories.add(new File(path));
+        do {
+        	Set<File> nextDirectories = new HashSet<File>();
+            for(File previousDirectory : previousDirectories)
+                for(File file : previousDirectory.listFiles()) {
+                    if(!file.canRead())
+                    	continue;
+
+                    if(file.isDirectory())
+                        nextDirectories.add(file);
+                    else if(file.getPath().endsWith(extension))
+                        files.add(file);
+                }
+            previousDirectories = nextDirectories;
+        } while(!previousDirectories.isEmpty());
+
+        return files;
+	}
+
+	private static class FileDigest {
+
+		private final long lastModified, length;
+		private final byte[] digest;
+
+		private FileDigest(long lastModified, long length, byte[] digest) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.digest = digest;
+		}
+	}
+
+	/*
+	 * Loads the classes of a group package from its cache directory before looking for them on the class path
+	 */
+	private static class GroupClassLoader extends URLClassLoader {
+
+		static {
+			ClassLoader.registerAsParallelCapable();
+		}
+
+		private final String packagePrefix;
+
+		private GroupClassLoader(String playerName, File classDirectory, ClassLoader parent) throws IOException {
+			super(new URL[]{classDirectory.toURI().toURL()}, parent);
+			this.packagePrefix = playerName + ".";
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if(!name.startsWith(packagePrefix))
+				return super.loadClass(name, resolve);
+			synchronized(getClassLoadingLock(name)) {
+				Class<?> loadedClass = findLoadedClass(name);
+				if(loadedClass == null) {
+					try {
+						loadedClass = findClass(name);
+					} catch(ClassNotFoundException e) {
+						loadedClass = super.loadClass(name, false);
+					}
+				}
+				if(resolve)
+					resolveClass(loadedClass);
+				return loadedClass;
+			}
+		}
+	}
+}
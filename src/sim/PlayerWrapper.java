@@ -3,45 +3,81 @@ package sim;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import jdk.jfr.EventType;
 
 public class PlayerWrapper {
 
-	private Timer timer;
+	private static final EventType REALLOCATION_EVENT_TYPE = EventType.getEventType(ReallocationEvent.class);
+
+	private ReallocationSupervisor reallocationSupervisor;
+	private Log log;
     private Player player;
     private String playerName;
-    private long timeout;
 
-    public PlayerWrapper(Player player, String playerName, long timeout) {
+    public PlayerWrapper(Player player, String playerName, ReallocationSupervisor reallocationSupervisor, Log log) {
         this.player = player;
         this.playerName = playerName;
-        this.timeout = timeout;
-        this.timer = new Timer();
+        this.reallocationSupervisor = reallocationSupervisor;
+        this.log = log;
     }
 
     public List<Game> reallocate(Integer round, GameHistory gameHistory, List<Game> playerGames, Map<Integer, List<Game>> opponentGamesMap) {
 
-    	Log.writeToVerboseLogFile("Retrieving reallocated goals from team " + this.playerName + " in round " + round + "...");
+    	log.writeToVerboseLogFile(() -> "Retrieving reallocated goals from team " + playerName + " in round " + round + "...");
         
     	List<Game> reallocatedPlayerGames = new ArrayList<>();
 
         try {
-            if(!timer.isAlive())
-            	timer.start();
-            timer.callStart(() -> { return player.reallocate(round, gameHistory, playerGames, opponentGamesMap); });
-            reallocatedPlayerGames = timer.callWait(timeout);
+            reallocatedPlayerGames = reallocationSupervisor.call(playerName, () -> { return reallocateRecorded(round, gameHistory, playerGames, opponentGamesMap); });
         }
         catch(Exception e) {
-            Log.writeToVerboseLogFile("Team " + this.playerName + " has possibly timed out.");
-            Log.writeToVerboseLogFile("Exception for team " + this.playerName + ": " + e);
+            // Refused calls never reach a player thread, so their events are committed here
+            if(e instanceof RejectedExecutionException && REALLOCATION_EVENT_TYPE.isEnabled())
+                commitReallocationEvent(new ReallocationEvent(), round, false, true);
+            log.writeToVerboseLogFile("Team " + this.playerName + " has possibly timed out.");
+            log.writeToVerboseLogFile("Exception for team " + this.playerName + ": " + e);
         }
 
         return reallocatedPlayerGames;
     }
     
+    /*
+     * Reallocation of the player, recorded as an event on the thread running it while events are recorded
+     */
+    private List<Game> reallocateRecorded(Integer round, GameHistory gameHistory, List<Game> playerGames, Map<Integer, List<Game>> opponentGamesMap) {
+        if(!REALLOCATION_EVENT_TYPE.isEnabled())
+            return player.reallocate(round, gameHistory, playerGames, opponentGamesMap);
+
+        ReallocationEvent reallocationEvent = new ReallocationEvent();
+        reallocationEvent.begin();
+        try {
+            return player.reallocate(round, gameHistory, playerGames, opponentGamesMap);
+        } finally {
+            reallocationEvent.end();
+            commitReallocationEvent(reallocationEvent, round, ReallocationSupervisor.endCurrentCall(), false);
+        }
+    }
+
+    private void commitReallocationEvent(ReallocationEvent reallocationEvent, int round, boolean timedOut, boolean refused) {
+        if(reallocationEvent.shouldCommit()) {
+            reallocationEvent.team = playerName;
+            reallocationEvent.round = round;
+            reallocationEvent.timedOut = timedOut;
+            reallocationEvent.refused = refused;
+            reallocationEvent.commit();
+        }
+    }
+
     public Player getPlayer() {
     	return player;
     }
 
+    void setPlayer(Player player) {
+        this.player = player;
+    }
+
     public String getPlayerName() {
         return playerName;
     }
@@ -0,0 +1,87 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RankStatistics {
+
+	// Two-sided 95% quantiles of Student's t distribution for 1 to 30 degrees of freedom, then for 40, 60, and 120
+	private static final double[] T_CRITICAL_VALUES = {
+		12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+		2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+		2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+	};
+	private static final double T_CRITICAL_VALUE_40 = 2.021, T_CRITICAL_VALUE_60 = 2.000, T_CRITICAL_VALUE_120 = 1.980;
+
+	private List<Double> ranks = new ArrayList<>();
+	private double rankSum = 0.0;
+
+	public void addRank(double rank) {
+		ranks.add(rank);
+		rankSum += rank;
+	}
+
+	public int getNumRanks() {
+		return ranks.size();
+	}
+
+	public double getMean() {
+		return ranks.isEmpty() ? Double.NaN : rankSum / ranks.size();
+	}
+
+	public double getMedian() {
+		if(ranks.isEmpty())
+			return Double.NaN;
+		List<Double> sortedRanks = new ArrayList<>(ranks);
+		Collections.sort(sortedRanks);
+		int middle = sortedRanks.size() / 2;
+		if(sortedRanks.size() % 2 == 1)
+			return sortedRanks.get(middle);
+		return (sortedRanks.get(middle - 1) + sortedRanks.get(middle)) / 2;
+	}
+
+	public double getStandardDeviation() {
+		if(ranks.size() < 2)
+			return 0.0;
+		double mean = getMean();
+		double squaredDeviationSum = 0.0;
+		for(double rank : ranks)
+			squaredDeviationSum += (rank - mean) * (rank - mean);
+		return Math.sqrt(squaredDeviationSum / (ranks.size() - 1));
+	}
+
+	/*
+	 * Half-width of the 95% confidence interval of the mean rank, from Student's t distribution with n - 1 degrees of freedom
+	 */
+	public double getConfidenceIntervalHalfWidth() {
+		if(ranks.isEmpty())
+			return Double.NaN;
+		if(ranks.size() < 2)
+			return 0.0;
+		return getCriticalValue(ranks.size() - 1) * getStandardDeviation() / Math.sqrt(ranks.size());
+	}
+
+	/*
+	 * Degrees of freedom between the tabulated ones use the next lower entry, so the interval is never too narrow
+	 */
+	private static double getCriticalValue(int degreesOfFreedom) {
+		if(degreesOfFreedom <= T_CRITICAL_VALUES.length)
+			return T_CRITICAL_VALUES[degreesOfFreedom - 1];
+		if(degreesOfFreedom < 40)
+			return T_CRITICAL_VALUES[T_CRITICAL_VALUES.length - 1];
+		if(degreesOfFreedom < 60)
+			return T_CRITICAL_VALUE_40;
+		if(degreesOfFreedom < 120)
+			return T_CRITICAL_VALUE_60;
+		return T_CRITICAL_VALUE_120;
+	}
+
+	public double getConfidenceIntervalLowerBound() {
+		return getMean() - getConfidenceIntervalHalfWidth();
+	}
+
+	public double getConfidenceIntervalUpperBound() {
+		return getMean() + getConfidenceIntervalHalfWidth();
+	}
+}
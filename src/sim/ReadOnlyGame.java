@@ -0,0 +1,29 @@
+package sim;
+
+class ReadOnlyGame extends Game {
+
+	private static final long serialVersionUID = 1L;
+
+	ReadOnlyGame(Game game) {
+		this(game.getID(), game.getNumPlayerGoals(), game.getNumOpponentGoals());
+	}
+
+	ReadOnlyGame(Integer gameID, Integer numPlayerGoals, Integer numOpponentGoals) {
+		super(gameID, new ReadOnlyScore(numPlayerGoals, numOpponentGoals));
+	}
+
+	@Override
+	public void setScore(Score score) {
+		throw new UnsupportedOperationException("Games in the game history are read-only!");
+	}
+
+	@Override
+	public void setNumPlayerGoals(Integer numPlayerGoals) {
+		throw new UnsupportedOperationException("Games in the game history are read-only!");
+	}
+
+	@Override
+	public void setNumOpponentGoals(Integer numOpponentGoals) {
+		throw new UnsupportedOperationException("Games in the game history are read-only!");
+	}
+}
@@ -0,0 +1,45 @@
+package sim;
+
+class ReadOnlyPlayerPoints extends PlayerPoints {
+
+	private static final long serialVersionUID = 1L;
+
+	ReadOnlyPlayerPoints(Integer numPoints) {
+		super(numPoints);
+	}
+
+	@Override
+	public void setTotalPoints(Integer numPoints) {
+		throw new UnsupportedOperationException("Points in the game history are read-only!");
+	}
+
+	@Override
+	public void addWinPoints() {
+		throw new UnsupportedOperationException("Points in the game history are read-only!");
+	}
+
+	@Override
+	public void subtractWinPoints() {
+		throw new UnsupportedOperationException("Points in the game history are read-only!");
+	}
+
+	@Override
+	public void addDrawPoints() {
+		throw new UnsupportedOperationException("Points in the game history are read-only!");
+	}
+
+	@Override
+	public void subtractDrawPoints() {
+		throw new UnsupportedOperationException("Points in the game history are read-only!");
+	}
+
+	@Override
+	public void addLossPoints() {
+		throw new UnsupportedOperationException("Points in the game history are read-only!");
+	}
+
+	@Override
+	public void subtractLossPoints() {
+		throw new UnsupportedOperationException("Points in the game history are read-only!");
+	}
+}
@@ -0,0 +1,20 @@
+package sim;
+
+class ReadOnlyScore extends Score {
+
+	private static final long serialVersionUID = 1L;
+
+	ReadOnlyScore(Integer numPlayerGoals, Integer numOpponentGoals) {
+		super(numPlayerGoals, numOpponentGoals);
+	}
+
+	@Override
+	public void setNumPlayerGoals(Integer numPlayerGoals) {
+		throw new UnsupportedOperationException("Scores in the game history are read-only!");
+	}
+
+	@Override
+	public void setNumOpponentGoals(Integer numOpponentGoals) {
+		throw new UnsupportedOperationException("Scores in the game history are read-only!");
+	}
+}
@@ -0,0 +1,33 @@
+package sim;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight Recorder event spanning a team's reallocation call, committed on the thread that ran the player
+ */
+@Name("sim.Reallocation")
+@Label("Reallocation")
+@Category("Retroactive Soccer")
+@Description("A call to a player's reallocate, recorded on the thread running the player")
+@StackTrace(false)
+class ReallocationEvent extends Event {
+
+	@Label("Team")
+	String team;
+
+	@Label("Round")
+	int round;
+
+	@Label("Timed Out")
+	@Description("The supervisor gave up on the call because it did not return before the timeout")
+	boolean timedOut;
+
+	@Label("Refused")
+	@Description("The call was refused because of runaway calls, so the player was not called")
+	boolean refused;
+}
@@ -0,0 +1,25 @@
+package sim;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight Recorder event marking a team's reallocation rejected by the simulator's validation
+ */
+@Name("sim.ReallocationRejected")
+@Label("Reallocation Rejected")
+@Category("Retroactive Soccer")
+@Description("The reallocated games of a team broke a constraint, so the team kept its previous games")
+@StackTrace(false)
+class ReallocationRejectedEvent extends Event {
+
+	@Label("Team")
+	String team;
+
+	@Label("Round")
+	int round;
+}
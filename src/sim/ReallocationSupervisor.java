@@ -0,0 +1,263 @@
+package sim;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Runs player calls on a shared pool of daemon threads and enforces the reallocation timeout.
+ *
+ * A call that times out is interrupted. If it keeps running anyway, it is quarantined as a runaway call:
+ * the player is not called again until the runaway call returns, so at most one call per player is ever
+ * in flight. While the number of runaway calls is at the cap, no player is called at all, so runaway
+ * calls can only outnumber the cap by calls that were already running when it was reached. Each call
+ * that times out or is refused counts as a timeout for the player. A call that ends before the supervisor
+ * gives up on it is not a timeout, even if it overran the deadline, so the call and the supervisor always
+ * agree on its outcome.
+ *
+ * The executor can be shared by the supervisors of many simulations, and can run each call on its own
+ * virtual thread when the JVM supports them, so idle teams never hold on to a platform thread.
+ *
+ */
+public class ReallocationSupervisor {
+
+	public static final int DEFAULT_MAX_RUNAWAY_CALLS = 2;
+
+	private static final AtomicInteger threadCount = new AtomicInteger();
+	private static final ThreadLocal<ReallocationSupervisor.SupervisedCall<?>> currentCall = new ThreadLocal<>();
+
+	private final long timeout;
+	private final int maxRunawayCalls;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final Map<String, SupervisedCall<?>> runawayCallsMap = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> timeoutCountsMap = new ConcurrentHashMap<>();
+	private final AtomicInteger numRunawayCalls = new AtomicInteger();
+
+	/**
+	 * ReallocationSupervisor constructor
+	 *
+	 * @param timeout          maximum time for each call in milliseconds, or 0 for no limit
+	 * @param maxRunawayCalls  maximum number of timed-out calls that may keep running before new calls are refused
+	 *
+	 */
+	public ReallocationSupervisor(long timeout, int maxRunawayCalls) {
+		this(timeout, maxRunawayCalls, newPlatformThreadExecutor(), true);
+	}
+
+	/**
+	 * ReallocationSupervisor constructor
+	 *
+	 * @param timeout          maximum time for each call in milliseconds, or 0 for no limit
+	 * @param maxRunawayCalls  maximum number of timed-out calls that may keep running before new calls are refused
+	 * @param executor         executor running the calls
+	 * @param ownsExecutor     shut down the executor along with the supervisor; false if the executor is shared
+	 *
+	 */
+	public ReallocationSupervisor(long timeout, int maxRunawayCalls, ExecutorService executor, boolean ownsExecutor) {
+		if(timeout < 0)
+			throw new IllegalArgumentException("The timeout cannot be negative!");
+		if(maxRunawayCalls < 0)
+			throw new IllegalArgumentException("The maximum number of runaway calls cannot be negative!");
+		this.timeout = timeout;
+		this.maxRunawayCalls = maxRunawayCalls;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	public static ExecutorService newPlatformThreadExecutor() {
+		return Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "reallocation-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/*
+	 * Executor starting a new virtual thread for each task, looked up reflectively so the simulator still builds and runs on JDK 17
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch(ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Virtual threads are not supported by this JVM!", e);
+		}
+	}
+
+	public static boolean isVirtualThreadSupported() {
+		try {
+			newVirtualThreadExecutor().shutdown();
+			return true;
+		} catch(UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Run a player call under the timeout
+	 *
+	 * @param playerName  name of the player making the call
+	 * @param task        player call
+	 * @return            result of the call
+	 * @throws TimeoutException            if the call did not complete in time
+	 * @throws RejectedExecutionException  if the call was refused because of an earlier runaway call
+	 * @throws Exception                   if the call itself failed
+	 *
+	 */
+	public <T> T call(String playerName, Callable<T> task) throws Exception {
+		SupervisedCall<?> runawayCall = runawayCallsMap.get(playerName);
+		if(runawayCall != null) {
+			recordTimeout(playerName);
+			throw new RejectedExecutionException("Team " + playerName + " is still running a timed-out call!");
+		}
+		int numRunningRunawayCalls = numRunawayCalls.get();
+		if(numRunningRunawayCalls > 0 && numRunningRunawayCalls >= maxRunawayCalls) {
+			recordTimeout(playerName);
+			throw new RejectedExecutionException("Too many runaway calls to call team " + playerName + " again!");
+		}
+
+		SupervisedCall<T> supervisedCall = new SupervisedCall<>(playerName, task);
+		Future<T> future = executor.submit(supervisedCall);
+		try {
+			try {
+				return timeout == 0 ? future.get() : future.get(timeout, TimeUnit.MILLISECONDS);
+			} catch(TimeoutException e) {
+				if(!supervisedCall.timeOut())
+					return future.get();
+				future.cancel(true);
+				recordTimeout(playerName);
+				supervisedCall.quarantineIfRunning();
+				throw e;
+			}
+		} catch(InterruptedException e) {
+			future.cancel(true);
+			supervisedCall.quarantineIfRunning();
+			Thread.currentThread().interrupt();
+			throw e;
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof Exception)
+				throw (Exception) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * End the supervised call running on the current thread, so a task can act on its outcome before returning
+	 *
+	 * @return  true if the supervisor already gave up on the call because it timed out
+	 *
+	 */
+	public static boolean endCurrentCall() {
+		SupervisedCall<?> supervisedCall = currentCall.get();
+		return supervisedCall != null && supervisedCall.end();
+	}
+
+	public int getNumTimeouts(String playerName) {
+		AtomicInteger timeoutCount = timeoutCountsMap.get(playerName);
+		return timeoutCount == null ? 0 : timeoutCount.get();
+	}
+
+	public Map<String, Integer> getTimeoutCountsMap() {
+		Map<String, Integer> timeoutCountsMap = new TreeMap<>();
+		for(Map.Entry<String, AtomicInteger> timeoutCountEntry : this.timeoutCountsMap.entrySet())
+			timeoutCountsMap.put(timeoutCountEntry.getKey(), timeoutCountEntry.getValue().get());
+		return timeoutCountsMap;
+	}
+
+	/*
+	 * Restores the timeout counts of a resumed simulation, since earlier timeouts decide which teams may be refused
+	 */
+	void restoreTimeoutCounts(Map<String, Integer> timeoutCountsMap) {
+		this.timeoutCountsMap.clear();
+		for(Map.Entry<String, Integer> timeoutCountEntry : timeoutCountsMap.entrySet())
+			this.timeoutCountsMap.put(timeoutCountEntry.getKey(), new AtomicInteger(timeoutCountEntry.getValue()));
+	}
+
+	public int getNumRunawayCalls() {
+		return numRunawayCalls.get();
+	}
+
+	public void shutdown() {
+		if(ownsExecutor)
+			executor.shutdownNow();
+	}
+
+	private void recordTimeout(String playerName) {
+		timeoutCountsMap.computeIfAbsent(playerName, name -> new AtomicInteger()).incrementAndGet();
+	}
+
+	private class SupervisedCall<T> implements Callable<T> {
+
+		private final String playerName;
+		private final Callable<T> task;
+		private boolean started = false, abandoned = false, ended = false, timedOut = false, finished = false, quarantined = false;
+
+		private SupervisedCall(String playerName, Callable<T> task) {
+			this.playerName = playerName;
+			this.task = task;
+		}
+
+		@Override
+		public T call() throws Exception {
+			synchronized(this) {
+				if(abandoned)
+					throw new CancellationException();
+				started = true;
+			}
+			currentCall.set(this);
+			try {
+				return task.call();
+			} finally {
+				currentCall.remove();
+				synchronized(this) {
+					if(!timedOut)
+						ended = true;
+					finished = true;
+					if(quarantined) {
+						runawayCallsMap.remove(playerName, this);
+						numRunawayCalls.decrementAndGet();
+					}
+				}
+			}
+		}
+
+		private synchronized boolean end() {
+			if(!timedOut)
+				ended = true;
+			return timedOut;
+		}
+
+		/*
+		 * Gives up on the call unless it already ended, in which case its result is used
+		 */
+		private synchronized boolean timeOut() {
+			if(ended)
+				return false;
+			timedOut = true;
+			return true;
+		}
+
+		private synchronized void quarantineIfRunning() {
+			// Calls that have not started yet must never start, and calls that finished have already cleaned up
+			if(!started) {
+				abandoned = true;
+				return;
+			}
+			if(finished || quarantined)
+				return;
+			quarantined = true;
+			numRunawayCalls.incrementAndGet();
+			runawayCallsMap.put(playerName, this);
+		}
+	}
+}
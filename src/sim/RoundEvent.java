@@ -0,0 +1,28 @@
+package sim;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight Recorder event spanning a round of a league
+ */
+@Name("sim.Round")
+@Label("Round")
+@Category("Retroactive Soccer")
+@Description("A round of a league, including its player calls, scoring, exports, and checkpoint")
+@StackTrace(false)
+class RoundEvent extends Event {
+
+	@Label("Seed")
+	int seed;
+
+	@Label("Round")
+	int round;
+
+	@Label("Teams")
+	int numTeams;
+}
@@ -0,0 +1,205 @@
+package sim;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/*
+ * Append-only map of consecutive rounds to per-round values.
+ *
+ * Snapshots share the backing list with the map they were taken from and are bounded
+ * by the number of rounds present at snapshot time, so taking a snapshot is O(1) and
+ * rounds appended later are never visible through it. Replacing a round copies the list
+ * first if a snapshot shares it. Snapshots are read-only.
+ *
+ */
+class RoundMap<V> extends AbstractMap<Integer, V> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient List<V> rounds;
+	private transient int firstRound;
+	private transient int size;
+	private transient boolean readOnly;
+	private transient boolean shared;
+	private transient Set<Map.Entry<Integer, V>> entrySet;
+
+	RoundMap() {
+		this.rounds = new ArrayList<>();
+		this.firstRound = 0;
+		this.size = 0;
+		this.readOnly = false;
+	}
+
+	private RoundMap(List<V> rounds, int firstRound, int size) {
+		this.rounds = rounds;
+		this.firstRound = firstRound;
+		this.size = size;
+		this.readOnly = true;
+	}
+
+	RoundMap<V> snapshot() {
+		shared = true;
+		return new RoundMap<>(rounds, firstRound, size);
+	}
+
+	/*
+	 * Read-only view of a round map that applies the mapper to each round's value on access
+	 */
+	static <V, W> Map<Integer, W> mapValues(Map<Integer, V> map, Function<? super V, ? extends W> mapper) {
+		return new AbstractMap<Integer, W>() {
+			@Override
+			public int size() {
+				return map.size();
+			}
+
+			@Override
+			public boolean containsKey(Object key) {
+				return map.containsKey(key);
+			}
+
+			@Override
+			public W get(Object key) {
+				V value = map.get(key);
+				return value == null ? null : mapper.apply(value);
+			}
+
+			@Override
+			public Set<Map.Entry<Integer, W>> entrySet() {
+				return new AbstractSet<Map.Entry<Integer, W>>() {
+					@Override
+					public int size() {
+						return map.size();
+					}
+
+					@Override
+					public Iterator<Map.Entry<Integer, W>> iterator() {
+						Iterator<Map.Entry<Integer, V>> iterator = map.entrySet().iterator();
+						return new Iterator<Map.Entry<Integer, W>>() {
+							@Override
+							public boolean hasNext() {
+								return iterator.hasNext();
+							}
+
+							@Override
+							public Map.Entry<Integer, W> next() {
+								Map.Entry<Integer, V> entry = iterator.next();
+								return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), mapper.apply(entry.getValue()));
+							}
+						};
+					}
+				};
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public V get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : rounds.get(index);
+	}
+
+	@Override
+	public V put(Integer round, V value) {
+		if(readOnly)
+			throw new UnsupportedOperationException("Game history snapshots are read-only!");
+		if(size == 0)
+			firstRound = round;
+
+		int index = round - firstRound;
+		if(index >= 0 && index < size) {
+			if(shared) {
+				rounds = new ArrayList<>(rounds.subList(0, size));
+				shared = false;
+			}
+			return rounds.set(index, value);
+		}
+		if(index != size)
+			throw new IllegalArgumentException("Round " + round + " is not the next round in the history!");
+
+		rounds.add(value);
+		size++;
+		return null;
+	}
+
+	@Override
+	public Set<Map.Entry<Integer, V>> entrySet() {
+		if(entrySet == null)
+			entrySet = new AbstractSet<Map.Entry<Integer, V>>() {
+				@Override
+				public int size() {
+					return size;
+				}
+
+				@Override
+				public Iterator<Map.Entry<Integer, V>> iterator() {
+					int bound = size;
+					return new Iterator<Map.Entry<Integer, V>>() {
+						private int index = 0;
+
+						@Override
+						public boolean hasNext() {
+							return index < bound;
+						}
+
+						@Override
+						public Map.Entry<Integer, V> next() {
+							if(index >= bound)
+								throw new NoSuchElementException();
+							Map.Entry<Integer, V> entry = new AbstractMap.SimpleImmutableEntry<>(firstRound + index, rounds.get(index));
+							index++;
+							return entry;
+						}
+					};
+				}
+			};
+		return entrySet;
+	}
+
+	private int indexOf(Object key) {
+		if(!(key instanceof Integer))
+			return -1;
+		int index = (Integer) key - firstRound;
+		return index >= 0 && index < size ? index : -1;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(firstRound);
+		out.writeInt(size);
+		out.writeBoolean(readOnly);
+		for(int i = 0; i < size; i++)
+			out.writeObject(rounds.get(i));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		firstRound = in.readInt();
+		size = in.readInt();
+		readOnly = in.readBoolean();
+		rounds = new ArrayList<>(size);
+		for(int i = 0; i < size; i++)
+			rounds.add((V) in.readObject());
+	}
+}
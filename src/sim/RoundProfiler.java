@@ -0,0 +1,148 @@
+package sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Times each phase of the reallocation rounds, and each team's reallocation, into latency histograms.
+ *
+ * Phases are timed by chaining clock reads, so a round costs one clock read per phase and two per player
+ * call. A disabled profiler never reads the clock. Player calls may be timed on other threads, as long as
+ * each team's calls are made one at a time.
+ *
+ */
+class RoundProfiler {
+
+	enum Phase {
+		SNAPSHOT("History snapshot"),
+		REALLOCATION("Player calls"),
+		VALIDATION("Validation"),
+		SCORING("Scoring"),
+		RANKING("Ranking"),
+		HISTORY("History update"),
+		EXPORT("Export"),
+		LOGGING("Logging"),
+		GUI("GUI"),
+		CHECKPOINT("Checkpoint");
+
+		private final String label;
+
+		Phase(String label) {
+			this.label = label;
+		}
+	}
+
+	private final boolean enabled;
+	private final List<String> teamNames;
+	private final LatencyHistogram roundHistogram = new LatencyHistogram();
+	private final LatencyHistogram[] phaseHistograms = new LatencyHistogram[Phase.values().length];
+	private final LatencyHistogram[] reallocationHistograms;
+	private long firstRoundStartTime, lastRoundEndTime, roundStartTime;
+
+	/**
+	 * RoundProfiler constructor
+	 *
+	 * @param enabled    whether rounds are timed
+	 * @param teamNames  team names ordered by team ID
+	 *
+	 */
+	RoundProfiler(boolean enabled, List<String> teamNames) {
+		this.enabled = enabled;
+		this.teamNames = new ArrayList<>(teamNames);
+		for(int i = 0; i < phaseHistograms.length; i++)
+			phaseHistograms[i] = new LatencyHistogram();
+		this.reallocationHistograms = new LatencyHistogram[teamNames.size() + 1];
+		for(int teamID = 1; teamID <= teamNames.size(); teamID++)
+			reallocationHistograms[teamID] = new LatencyHistogram();
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	/*
+	 * Starts timing a round, and returns the start time of its first phase
+	 */
+	long startRound() {
+		if(!enabled)
+			return 0;
+		roundStartTime = System.nanoTime();
+		if(roundHistogram.getCount() == 0)
+			firstRoundStartTime = roundStartTime;
+		return roundStartTime;
+	}
+
+	/*
+	 * Records a phase that started at the given time, and returns the start time of the next phase
+	 */
+	long endPhase(Phase phase, long startTime) {
+		if(!enabled)
+			return 0;
+		long endTime = System.nanoTime();
+		phaseHistograms[phase.ordinal()].record(endTime - startTime);
+		return endTime;
+	}
+
+	void endRound() {
+		if(!enabled)
+			return;
+		lastRoundEndTime = System.nanoTime();
+		roundHistogram.record(lastRoundEndTime - roundStartTime);
+	}
+
+	long startReallocation() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	void endReallocation(int teamID, long startTime) {
+		if(enabled)
+			reallocationHistograms[teamID].record(System.nanoTime() - startTime);
+	}
+
+	List<String> getReportLines() {
+		List<String> lines = new ArrayList<>();
+		long numRounds = roundHistogram.getCount();
+		if(!enabled || numRounds == 0)
+			return lines;
+
+		double elapsedSeconds = (lastRoundEndTime - firstRoundStartTime) / 1e9;
+		lines.add("---------------------------------------------------------------Round Profile---------------------------------------------------------------");
+		lines.add(numRounds + " rounds in " + String.format("%.3f", elapsedSeconds) + " s (" + String.format("%.1f", numRounds / elapsedSeconds) + " rounds/s)");
+		lines.add("Phase\t\t\tTotal (ms)\tShare\tMean (us)\tp50 (us)\tp99 (us)\tMax (us)");
+		for(Phase phase : Phase.values())
+			lines.add(getHistogramLine(phase.label, phaseHistograms[phase.ordinal()], roundHistogram.getTotal()));
+		lines.add(getHistogramLine("Round", roundHistogram, roundHistogram.getTotal()));
+
+		lines.add("");
+		lines.add("Team\t\t\tCalls\t\tMean (us)\tp50 (us)\tp99 (us)\tMax (us)");
+		for(int teamID = 1; teamID <= teamNames.size(); teamID++) {
+			LatencyHistogram histogram = reallocationHistograms[teamID];
+			String teamName = teamNames.get(teamID - 1);
+			lines.add(teamName + getTabs(teamName) +
+					  histogram.getCount() + "\t\t" +
+					  formatMicros(histogram.getMean()) + "\t\t" +
+					  formatMicros(histogram.getPercentile(50)) + "\t\t" +
+					  formatMicros(histogram.getPercentile(99)) + "\t\t" +
+					  formatMicros(histogram.getMax()));
+		}
+		return lines;
+	}
+
+	private static String getHistogramLine(String label, LatencyHistogram histogram, long roundsTotal) {
+		return label + getTabs(label) +
+			   String.format("%.3f", histogram.getTotal() / 1e6) + "\t\t" +
+			   String.format("%.1f%%", 100.0 * histogram.getTotal() / Math.max(roundsTotal, 1)) + "\t" +
+			   formatMicros(histogram.getMean()) + "\t\t" +
+			   formatMicros(histogram.getPercentile(50)) + "\t\t" +
+			   formatMicros(histogram.getPercentile(99)) + "\t\t" +
+			   formatMicros(histogram.getMax());
+	}
+
+	private static String getTabs(String label) {
+		return label.length() < 8 ? "\t\t\t" : label.length() < 16 ? "\t\t" : "\t";
+	}
+
+	private static String formatMicros(double nanos) {
+		return String.format("%.1f", nanos / 1000);
+	}
+}
@@ -0,0 +1,62 @@
+package sim;
+
+/*
+ * Allocation-free round ranking over primitive point totals.
+ *
+ * Round points are bounded integers, so teams are bucketed by points in a single pass and each
+ * bucket's rank is derived from the number of teams with strictly more points. Tied teams share
+ * the average of the positions they occupy, exactly as in the original sort-based ranking.
+ *
+ */
+public class RoundRanker {
+
+	private int maxPoints;
+	private int[] buckets;
+
+	/**
+	 * RoundRanker constructor
+	 *
+	 * @param maxPoints  maximum number of points a team can earn in a round
+	 *
+	 */
+	public RoundRanker(int maxPoints) {
+		if(maxPoints < 0)
+			throw new IllegalArgumentException("The maximum number of points cannot be negative!");
+		this.maxPoints = maxPoints;
+		this.buckets = new int[maxPoints + 1];
+	}
+
+	public static RoundRanker forNumTeams(int numTeams) {
+		return new RoundRanker(PlayerPoints.getWinPointValue() * Math.max(numTeams - 1, 0));
+	}
+
+	/**
+	 * Rank the teams in points[fromIndex, toIndex) by descending points
+	 *
+	 * @param points     round points of each team
+	 * @param ranks      output array receiving the rank of each team at the same index
+	 * @param fromIndex  first team index, inclusive
+	 * @param toIndex    last team index, exclusive
+	 *
+	 */
+	public void computeRanks(int[] points, double[] ranks, int fromIndex, int toIndex) {
+		for(int p = 0; p <= maxPoints; p++)
+			buckets[p] = 0;
+		for(int i = fromIndex; i < toIndex; i++) {
+			if(points[i] < 0 || points[i] > maxPoints)
+				throw new IllegalArgumentException("Round points " + points[i] + " are outside of [0, " + maxPoints + "]!");
+			buckets[points[i]]++;
+		}
+
+		// Replace each count with twice the average position of its tie group, so the ranks stay integral until the end
+		int numTeamsAbove = 0;
+		for(int p = maxPoints; p >= 0; p--) {
+			int numTeamsTied = buckets[p];
+			buckets[p] = 2 * numTeamsAbove + numTeamsTied + 1;
+			numTeamsAbove += numTeamsTied;
+		}
+
+		for(int i = fromIndex; i < toIndex; i++)
+			ranks[i] = ((double) buckets[points[i]]) / 2;
+	}
+}
@@ -0,0 +1,287 @@
+package sim;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/*
+ * Append-only map of consecutive rounds to league states that stores most rounds as the goals that
+ * changed since the previous round.
+ *
+ * Every keyframeInterval-th round, and any round whose changes would not be smaller than its goal
+ * matrix, is kept as a full state (a keyframe). The changes of all other rounds are packed into one
+ * shared buffer, so a round that changes a few games costs a few bytes. Reading a round decodes
+ * forward from the closest keyframe, applying fewer than keyframeInterval change sets. The last
+ * decoded round is cached, so reading the same or the next round again applies at most one change
+ * set, and the latest round is always kept in full.
+ *
+ * As with RoundMap, snapshots are O(1) and read-only: new rounds are written past the end of the data
+ * captured by earlier snapshots, or into new arrays, so later rounds are never visible through them.
+ *
+ */
+class RoundStateMap extends AbstractMap<Integer, LeagueState> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final int keyframeInterval;
+	private transient LeagueState[] keyframes;   // null for rounds stored as changes
+	private transient int[] changeEnds;          // end of each round's changes; they start at the end of the previous round's
+	private transient byte[] changes;
+	private transient LeagueState lastState;
+	private transient int firstRound;
+	private transient int size;
+	private transient boolean readOnly;
+	private transient volatile DecodedRound lastDecodedRound;
+	private transient Set<Map.Entry<Integer, LeagueState>> entrySet;
+
+	RoundStateMap(int keyframeInterval) {
+		if(keyframeInterval < 1)
+			throw new IllegalArgumentException("The keyframe interval must be positive!");
+		this.keyframeInterval = keyframeInterval;
+		this.keyframes = new LeagueState[INITIAL_CAPACITY];
+		this.changeEnds = new int[INITIAL_CAPACITY];
+		this.changes = new byte[0];
+		this.firstRound = 0;
+		this.size = 0;
+		this.readOnly = false;
+	}
+
+	private RoundStateMap(RoundStateMap roundStateMap) {
+		this.keyframeInterval = roundStateMap.keyframeInterval;
+		this.keyframes = roundStateMap.keyframes;
+		this.changeEnds = roundStateMap.changeEnds;
+		this.changes = roundStateMap.changes;
+		this.lastState = roundStateMap.lastState;
+		this.firstRound = roundStateMap.firstRound;
+		this.size = roundStateMap.size;
+		this.readOnly = true;
+		this.lastDecodedRound = roundStateMap.lastDecodedRound;
+	}
+
+	RoundStateMap snapshot() {
+		return new RoundStateMap(this);
+	}
+
+	int getKeyframeInterval() {
+		return keyframeInterval;
+	}
+
+	/*
+	 * Number of rounds stored as full states, including the latest round
+	 */
+	int getNumKeyframes() {
+		int numKeyframes = 0;
+		for(int index = 0; index < size; index++)
+			if(keyframes[index] != null || index == size - 1)
+				numKeyframes++;
+		return numKeyframes;
+	}
+
+	/*
+	 * Number of bytes taken by the changes of all rounds stored as changes
+	 */
+	int getChangesSize() {
+		return size == 0 ? 0 : changeEnds[size - 1];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public LeagueState get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : decode(index);
+	}
+
+	/*
+	 * The state must not be modified after it has been added
+	 */
+	@Override
+	public LeagueState put(Integer round, LeagueState roundState) {
+		if(readOnly)
+			throw new UnsupportedOperationException("Game history snapshots are read-only!");
+		if(size == 0)
+			firstRound = round;
+
+		int index = round - firstRound;
+		if(index < 0 || index > size)
+			throw new IllegalArgumentException("Round " + round + " is not the next round in the history!");
+		if(index < size - 1)
+			throw new IllegalArgumentException("Only the latest round can be replaced in the history!");
+
+		LeagueState previousRoundState = null;
+		if(index == size - 1) {
+			// Snapshots may include the replaced round, so it is dropped from copies of the arrays
+			previousRoundState = lastState;
+			LeagueState secondToLastState = size == 1 ? null : decode(size - 2);
+			keyframes = keyframes.clone();
+			changeEnds = changeEnds.clone();
+			changes = changes.clone();
+			lastDecodedRound = null;
+			lastState = secondToLastState;
+			size--;
+		}
+		append(roundState);
+		return previousRoundState;
+	}
+
+	private void append(LeagueState roundState) {
+		if(size == keyframes.length) {
+			keyframes = Arrays.copyOf(keyframes, 2 * size);
+			changeEnds = Arrays.copyOf(changeEnds, 2 * size);
+		}
+
+		int start = size == 0 ? 0 : changeEnds[size - 1];
+		int end = -1;
+		if(size % keyframeInterval != 0 && lastState.getNumTeams() == roundState.getNumTeams()) {
+			int limit = start + roundState.getMatrixSize() - 1;
+			if(changes.length < limit + LeagueState.MAX_CHANGE_BYTES)
+				changes = Arrays.copyOf(changes, Math.max(2 * changes.length, limit + LeagueState.MAX_CHANGE_BYTES));
+			end = roundState.writeChanges(lastState, changes, start, limit);
+		}
+
+		keyframes[size] = end < 0 ? roundState : null;
+		changeEnds[size] = end < 0 ? start : end;
+		lastState = roundState;
+		size++;
+	}
+
+	private LeagueState decode(int index) {
+		if(index == size - 1)
+			return lastState;
+		if(keyframes[index] != null)
+			return keyframes[index];
+
+		DecodedRound decodedRound = lastDecodedRound;
+		if(decodedRound != null && decodedRound.index == index)
+			return decodedRound.state;
+
+		int keyframeIndex = index;
+		while(keyframes[keyframeIndex] == null)
+			keyframeIndex--;
+
+		LeagueState roundState;
+		int decodedIndex;
+		if(decodedRound != null && decodedRound.index > keyframeIndex && decodedRound.index < index) {
+			roundState = new LeagueState(decodedRound.state);
+			decodedIndex = decodedRound.index;
+		}
+		else {
+			roundState = new LeagueState(keyframes[keyframeIndex]);
+			decodedIndex = keyframeIndex;
+		}
+		while(decodedIndex < index) {
+			decodedIndex++;
+			roundState.applyChanges(changes, changeEnds[decodedIndex - 1], changeEnds[decodedIndex]);
+		}
+
+		lastDecodedRound = new DecodedRound(index, roundState);
+		return roundState;
+	}
+
+	@Override
+	public Set<Map.Entry<Integer, LeagueState>> entrySet() {
+		if(entrySet == null)
+			entrySet = new AbstractSet<Map.Entry<Integer, LeagueState>>() {
+				@Override
+				public int size() {
+					return size;
+				}
+
+				@Override
+				public Iterator<Map.Entry<Integer, LeagueState>> iterator() {
+					int bound = size;
+					LeagueState[] keyframes = RoundStateMap.this.keyframes;
+					int[] changeEnds = RoundStateMap.this.changeEnds;
+					byte[] changes = RoundStateMap.this.changes;
+					LeagueState lastState = RoundStateMap.this.lastState;
+					return new Iterator<Map.Entry<Integer, LeagueState>>() {
+						private int index = 0;
+						private LeagueState roundState;
+
+						@Override
+						public boolean hasNext() {
+							return index < bound;
+						}
+
+						@Override
+						public Map.Entry<Integer, LeagueState> next() {
+							if(index >= bound)
+								throw new NoSuchElementException();
+
+							// Iterating decodes each round from the one before it
+							if(keyframes[index] != null)
+								roundState = keyframes[index];
+							else if(index == bound - 1)
+								roundState = lastState;
+							else {
+								roundState = new LeagueState(roundState);
+								roundState.applyChanges(changes, changeEnds[index - 1], changeEnds[index]);
+							}
+							Map.Entry<Integer, LeagueState> entry = new AbstractMap.SimpleImmutableEntry<>(firstRound + index, roundState);
+							index++;
+							return entry;
+						}
+					};
+				}
+			};
+		return entrySet;
+	}
+
+	private int indexOf(Object key) {
+		if(!(key instanceof Integer))
+			return -1;
+		int index = (Integer) key - firstRound;
+		return index >= 0 && index < size ? index : -1;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(firstRound);
+		out.writeInt(size);
+		out.writeBoolean(readOnly);
+		out.writeObject(Arrays.copyOf(keyframes, size));
+		out.writeObject(Arrays.copyOf(changeEnds, size));
+		out.writeObject(Arrays.copyOf(changes, getChangesSize()));
+		out.writeObject(lastState);
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		firstRound = in.readInt();
+		size = in.readInt();
+		readOnly = in.readBoolean();
+		keyframes = Arrays.copyOf((LeagueState[]) in.readObject(), Math.max(size, INITIAL_CAPACITY));
+		changeEnds = Arrays.copyOf((int[]) in.readObject(), Math.max(size, INITIAL_CAPACITY));
+		changes = (byte[]) in.readObject();
+		lastState = (LeagueState) in.readObject();
+	}
+
+	private static class DecodedRound {
+
+		private final int index;
+		private final LeagueState state;
+
+		private DecodedRound(int index, LeagueState state) {
+			this.index = index;
+			this.state = state;
+		}
+	}
+}
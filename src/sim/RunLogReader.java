@@ -0,0 +1,323 @@
+package sim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Reads run logs written by RunLogWriter through memory-mapped I/O.
+ *
+ * Records are mapped lazily in fixed-stride segments that overlap by the size of the largest record,
+ * so every record lies whole within one mapping and files larger than a single mapping are supported.
+ * A round is read through the index by decoding forward from the closest keyframe before it, and the
+ * last decoded round is kept, so reading rounds in order decodes each record once. Incomplete run logs
+ * without an index, and run logs whose index is damaged or cut off, are indexed by following the lengths
+ * of their records.
+ *
+ */
+public class RunLogReader implements Closeable {
+
+	private static final long SEGMENT_STRIDE = 1L << 30;
+
+	private final FileChannel channel;
+	private final int seed, rounds, numTeams, goalBytes, keyframeInterval, matrixSize;
+	private final long dataOffset;
+	private long dataEnd;
+	private final List<String> teamNames;
+	private final List<Integer> recordedRounds = new ArrayList<>();
+	private final List<Long> recordOffsets = new ArrayList<>();
+	private final Map<Integer, Integer> recordIndicesMap = new HashMap<>();
+	private final Map<Integer, MappedByteBuffer> segmentsMap = new HashMap<>();
+	private final byte[] changes;
+	private int lastDecodedIndex = -1;
+	private LeagueState lastDecodedState;
+
+	public RunLogReader(String path) throws IOException {
+		this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+		try {
+			long fileSize = channel.size();
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, Integer.MAX_VALUE));
+			if(fileSize < RunLogWriter.INDEX_OFFSET_POSITION + Long.BYTES || header.getInt() != RunLogWriter.MAGIC)
+				throw new IOException("\"" + path + "\" is not a run log!");
+			int version = header.getInt();
+			if(version != RunLogWriter.VERSION)
+				throw new IOException("Unsupported run log version " + version + "!");
+			this.seed = header.getInt();
+			this.rounds = header.getInt();
+			this.numTeams = header.getInt();
+			this.goalBytes = header.getInt();
+			this.keyframeInterval = header.getInt();
+			long indexOffset = header.getLong();
+
+			List<String> teamNames = new ArrayList<>();
+			for(int i = 0; i < numTeams; i++) {
+				byte[] teamNameBytes = new byte[header.getInt()];
+				header.get(teamNameBytes);
+				teamNames.add(new String(teamNameBytes, StandardCharsets.UTF_8));
+			}
+			this.teamNames = Collections.unmodifiableList(teamNames);
+			this.dataOffset = header.position();
+			this.matrixSize = RunLogWriter.getMatrixSize(numTeams, goalBytes);
+			this.changes = new byte[matrixSize];
+
+			// A damaged index, e.g. of a truncated file, is ignored, and the records are scanned as those of an incomplete run log
+			if(indexOffset == 0 || !readIndex(indexOffset, fileSize)) {
+				long scanEnd = indexOffset > dataOffset && indexOffset < fileSize ? indexOffset : fileSize;
+				scanRecords(scanEnd);
+			}
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/*
+	 * Adds the records of the index, and returns whether the index is consistent with the file
+	 */
+	private boolean readIndex(long indexOffset, long fileSize) throws IOException {
+		if(indexOffset < dataOffset || indexOffset + Integer.BYTES > fileSize)
+			return false;
+		ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, fileSize - indexOffset);
+		int numRecords = index.getInt();
+		if(numRecords < 0 || indexOffset + Integer.BYTES + (long) numRecords * (Integer.BYTES + Long.BYTES) != fileSize)
+			return false;
+
+		int previousRound = Integer.MIN_VALUE;
+		for(int i = 0; i < numRecords; i++) {
+			int round = index.getInt();
+			long offset = index.getLong();
+			if(round <= previousRound || offset < dataOffset || offset + RunLogWriter.RECORD_HEADER_SIZE > indexOffset) {
+				clearRecords();
+				return false;
+			}
+			addRecord(round, offset);
+			previousRound = round;
+		}
+		this.dataEnd = indexOffset;
+		return true;
+	}
+
+	/*
+	 * Adds the records before the given end by following their lengths; rounds are written in increasing order,
+	 * so the scan stops at the first record that is cut off or breaks the order
+	 */
+	private void scanRecords(long end) throws IOException {
+		this.dataEnd = end;
+		long offset = dataOffset;
+		int previousRound = Integer.MIN_VALUE;
+		while(offset + RunLogWriter.RECORD_HEADER_SIZE <= end) {
+			ByteBuffer segment = getSegment(offset);
+			int position = getSegmentPosition(offset);
+			int round = segment.getInt(position);
+			byte recordType = segment.get(position + Integer.BYTES);
+			int payloadLength = segment.getInt(position + Integer.BYTES + 1);
+			if(round <= previousRound || payloadLength < 0 || payloadLength > matrixSize ||
+					(recordType != RunLogWriter.KEYFRAME_RECORD && recordType != RunLogWriter.CHANGES_RECORD) ||
+					offset + RunLogWriter.RECORD_HEADER_SIZE + payloadLength > end)
+				break;
+			addRecord(round, offset);
+			offset += RunLogWriter.RECORD_HEADER_SIZE + payloadLength;
+			previousRound = round;
+		}
+		this.dataEnd = offset;
+	}
+
+	private void clearRecords() {
+		recordIndicesMap.clear();
+		recordedRounds.clear();
+		recordOffsets.clear();
+	}
+
+	private void addRecord(int round, long offset) {
+		recordIndicesMap.put(round, recordedRounds.size());
+		recordedRounds.add(round);
+		recordOffsets.add(offset);
+	}
+
+	public int getSeed() {
+		return seed;
+	}
+
+	public int getNumRounds() {
+		return rounds;
+	}
+
+	public int getNumTeams() {
+		return numTeams;
+	}
+
+	public int getKeyframeInterval() {
+		return keyframeInterval;
+	}
+
+	/*
+	 * Team names ordered by team ID, i.e., the name of team ID i is at index i - 1
+	 */
+	public List<String> getTeamNames() {
+		return teamNames;
+	}
+
+	/*
+	 * Recorded rounds in file order; round 0 is the random initial round
+	 */
+	public List<Integer> getRecordedRounds() {
+		return new ArrayList<>(recordedRounds);
+	}
+
+	long getRecordOffset(int recordIndex) {
+		return recordOffsets.get(recordIndex);
+	}
+
+	/*
+	 * Offset just past the last record
+	 */
+	long getDataEnd() {
+		return dataEnd;
+	}
+
+	public boolean hasRound(int round) {
+		return recordIndicesMap.containsKey(round);
+	}
+
+	public synchronized LeagueState readRound(int round) throws IOException {
+		Integer recordIndex = recordIndicesMap.get(round);
+		if(recordIndex == null)
+			throw new IllegalArgumentException("Round " + round + " is not in the run log!");
+		if(recordIndex == lastDecodedIndex)
+			return lastDecodedState;
+
+		int keyframeIndex = recordIndex;
+		while(getRecordType(keyframeIndex) != RunLogWriter.KEYFRAME_RECORD) {
+			keyframeIndex--;
+			if(keyframeIndex < 0)
+				throw new IOException("The record of round " + round + " has no keyframe before it!");
+		}
+
+		LeagueState roundState = null;
+		int decodedIndex = keyframeIndex - 1;
+		if(lastDecodedIndex >= keyframeIndex && lastDecodedIndex < recordIndex) {
+			roundState = lastDecodedState;
+			decodedIndex = lastDecodedIndex;
+		}
+		while(decodedIndex < recordIndex) {
+			decodedIndex++;
+			roundState = readRecord(decodedIndex, roundState);
+		}
+
+		lastDecodedIndex = recordIndex;
+		lastDecodedState = roundState;
+		return roundState;
+	}
+
+	private byte getRecordType(int recordIndex) throws IOException {
+		long offset = recordOffsets.get(recordIndex);
+		return getSegment(offset).get(getSegmentPosition(offset) + Integer.BYTES);
+	}
+
+	/*
+	 * Reads a record into a new league state, applying changes to a copy of the previous record's state
+	 */
+	private LeagueState readRecord(int recordIndex, LeagueState previousState) throws IOException {
+		int round = recordedRounds.get(recordIndex);
+		long offset = recordOffsets.get(recordIndex);
+		ByteBuffer segment = getSegment(offset);
+		int position = getSegmentPosition(offset);
+		if(segment.getInt(position) != round)
+			throw new IOException("The record of round " + round + " is corrupted!");
+		byte recordType = segment.get(position + Integer.BYTES);
+		int payloadLength = segment.getInt(position + Integer.BYTES + 1);
+		position += RunLogWriter.RECORD_HEADER_SIZE;
+
+		if(recordType == RunLogWriter.CHANGES_RECORD) {
+			if(previousState == null || payloadLength > changes.length)
+				throw new IOException("The record of round " + round + " is corrupted!");
+			segment.get(position, changes, 0, payloadLength);
+			LeagueState roundState = new LeagueState(previousState);
+			roundState.applyChanges(changes, 0, payloadLength);
+			return roundState;
+		}
+		if(recordType != RunLogWriter.KEYFRAME_RECORD || payloadLength != matrixSize)
+			throw new IOException("The record of round " + round + " is corrupted!");
+
+		LeagueState roundState = new LeagueState(numTeams);
+		for(int teamID = 1; teamID <= numTeams; teamID++)
+			for(int opponentID = 1; opponentID <= numTeams; opponentID++) {
+				int numGoals;
+				if(goalBytes == 2) {
+					numGoals = segment.getShort(position) & 0xFFFF;
+					position += 2;
+				}
+				else
+					numGoals = segment.get(position++) & 0xFF;
+				if(numGoals != 0)
+					roundState.setGoals(teamID, opponentID, numGoals);
+			}
+		return roundState;
+	}
+
+	/**
+	 * Rebuild the game history of the league, recomputing points and rankings exactly as the simulator does
+	 *
+	 * @return  game history of all recorded rounds
+	 *
+	 */
+	public synchronized GameHistory readGameHistory() throws IOException {
+		GameHistory gameHistory = new GameHistory(keyframeInterval);
+		LeagueStandings standings = new LeagueStandings(numTeams);
+
+		LeagueState roundState = null;
+		for(int recordIndex = 0; recordIndex < recordedRounds.size(); recordIndex++) {
+			int round = recordedRounds.get(recordIndex);
+			roundState = readRecord(recordIndex, roundState);
+			gameHistory.addRoundState(round, roundState);
+			if(round == 0)
+				continue;
+
+			Map<Integer, PlayerPoints> roundPointsMap = standings.computeTeamPoints(roundState);
+			Map<Integer, PlayerPoints> roundCumulativePointsMap = standings.computeCumulativeTeamPoints(roundPointsMap);
+			Map<Integer, Double> roundRankingsMap = standings.computeRoundRankings(roundPointsMap);
+			Map<Integer, Double> roundAverageRankingsMap = standings.computeAverageRankings(roundRankingsMap);
+			gameHistory.addRoundPoints(round, roundPointsMap);
+			gameHistory.addRoundCumulativePoints(round, roundCumulativePointsMap);
+			gameHistory.addRoundRankings(round, roundRankingsMap);
+			gameHistory.addRoundAverageRankings(round, roundAverageRankingsMap);
+		}
+		return gameHistory;
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized(segmentsMap) {
+			segmentsMap.clear();
+		}
+		channel.close();
+	}
+
+	private ByteBuffer getSegment(long offset) throws IOException {
+		int segmentIndex = (int) ((offset - dataOffset) / SEGMENT_STRIDE);
+		synchronized(segmentsMap) {
+			MappedByteBuffer segment = segmentsMap.get(segmentIndex);
+			if(segment == null) {
+				long segmentOffset = dataOffset + segmentIndex * SEGMENT_STRIDE;
+				long segmentSize = Math.min(SEGMENT_STRIDE + RunLogWriter.RECORD_HEADER_SIZE + matrixSize, dataEnd - segmentOffset);
+				segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentOffset, segmentSize);
+				segmentsMap.put(segmentIndex, segment);
+			}
+			return segment;
+		}
+	}
+
+	private int getSegmentPosition(long offset) {
+		return (int) ((offset - dataOffset) % SEGMENT_STRIDE);
+	}
+}
@@ -0,0 +1,220 @@
+package sim;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Writes a league to a compact binary run log, storing most rounds as the goals that changed since the previous round.
+ *
+ * Layout (big-endian):
+ *
+ *   header   magic, version, seed, rounds, number of teams, bytes per goal, keyframe interval, index offset,
+ *            and the length-prefixed UTF-8 team names
+ *   records  round number, record type, and payload length, followed by the payload: either the full goal
+ *            matrix, row by row, as unsigned bytes or shorts (a keyframe), or the changes since the previous
+ *            record, as encoded by LeagueState.writeChanges
+ *   index    number of recorded rounds, then the round number and file offset of each record
+ *
+ * Every keyframeInterval-th record is a keyframe, as is any record whose changes would not be smaller than
+ * the goal matrix, so a round can be read by decoding forward from the closest keyframe before it.
+ *
+ * The index offset in the header is only filled in when the writer is closed, so a run log with an
+ * index offset of 0 is incomplete; its records can still be read by following their lengths. An incomplete
+ * run log can be cut back to its first records and appended to, which is how checkpoints store the game
+ * history without rewriting it.
+ *
+ */
+public class RunLogWriter implements Closeable {
+
+	static final int MAGIC = 0x52534C47;   // "RSLG"
+	static final int VERSION = 2;
+	static final int INDEX_OFFSET_POSITION = 28;
+	static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES + 1;
+	static final byte KEYFRAME_RECORD = 0;
+	static final byte CHANGES_RECORD = 1;
+
+	private final String path;
+	private final int numTeams, goalBytes, keyframeInterval;
+	private final byte[] matrix, changes;
+	private final List<Integer> recordedRounds = new ArrayList<>();
+	private final List<Long> recordOffsets = new ArrayList<>();
+	private DataOutputStream outputStream;
+	private LeagueState previousState;
+	private long position;
+
+	public RunLogWriter(String path, int seed, int rounds, List<String> teamNames) throws IOException {
+		this(path, seed, rounds, teamNames, GameHistory.DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+	/**
+	 * RunLogWriter constructor
+	 *
+	 * @param path              path of the run log
+	 * @param seed              league seed
+	 * @param rounds            number of reallocation rounds
+	 * @param teamNames         team names ordered by team ID
+	 * @param keyframeInterval  number of records between keyframes
+	 *
+	 */
+	public RunLogWriter(String path, int seed, int rounds, List<String> teamNames, int keyframeInterval) throws IOException {
+		if(keyframeInterval < 1)
+			throw new IllegalArgumentException("The keyframe interval must be positive!");
+		this.path = path;
+		this.numTeams = teamNames.size();
+		this.goalBytes = getGoalBytes(numTeams);
+		this.keyframeInterval = keyframeInterval;
+		this.matrix = new byte[getMatrixSize(numTeams, goalBytes)];
+		this.changes = new byte[matrix.length + LeagueState.MAX_CHANGE_BYTES];
+		this.outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+
+		outputStream.writeInt(MAGIC);
+		outputStream.writeInt(VERSION);
+		outputStream.writeInt(seed);
+		outputStream.writeInt(rounds);
+		outputStream.writeInt(numTeams);
+		outputStream.writeInt(goalBytes);
+		outputStream.writeInt(keyframeInterval);
+		outputStream.writeLong(0);
+		for(String teamName : teamNames) {
+			byte[] teamNameBytes = teamName.getBytes(StandardCharsets.UTF_8);
+			outputStream.writeInt(teamNameBytes.length);
+			outputStream.write(teamNameBytes);
+		}
+		position = outputStream.size();
+	}
+
+	/**
+	 * RunLogWriter constructor appending to the records of a run log, which must not have an index
+	 *
+	 * @param path    path of the run log
+	 * @param reader  reader of the run log, from which the records are indexed
+	 *
+	 */
+	RunLogWriter(String path, RunLogReader reader) throws IOException {
+		this.path = path;
+		this.numTeams = reader.getNumTeams();
+		this.goalBytes = getGoalBytes(numTeams);
+		this.keyframeInterval = reader.getKeyframeInterval();
+		this.matrix = new byte[getMatrixSize(numTeams, goalBytes)];
+		this.changes = new byte[matrix.length + LeagueState.MAX_CHANGE_BYTES];
+
+		List<Integer> rounds = reader.getRecordedRounds();
+		for(int i = 0; i < rounds.size(); i++) {
+			recordedRounds.add(rounds.get(i));
+			recordOffsets.add(reader.getRecordOffset(i));
+		}
+		if(!rounds.isEmpty())
+			previousState = new LeagueState(reader.readRound(rounds.get(rounds.size() - 1)));
+		position = reader.getDataEnd();
+		this.outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path, true), 1 << 16));
+	}
+
+	/**
+	 * Cut a run log back to its first bytes, and drop its index so its records can be appended to
+	 *
+	 * @param path    path of the run log
+	 * @param length  length to keep, as returned by getLength
+	 *
+	 */
+	static void truncate(String path, long length) throws IOException {
+		try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE)) {
+			if(channel.size() < length)
+				throw new IOException("The run log \"" + path + "\" is shorter than " + length + " bytes!");
+			channel.truncate(length);
+			channel.write(ByteBuffer.allocate(Long.BYTES), INDEX_OFFSET_POSITION);
+		}
+	}
+
+	/*
+	 * Random initial rounds can only assign more than 255 goals in leagues with more than 257 teams
+	 */
+	static int getGoalBytes(int numTeams) {
+		return Math.max(numTeams - 2, Game.getMaxGoalThreshold()) > 255 ? 2 : 1;
+	}
+
+	static int getMatrixSize(int numTeams, int goalBytes) {
+		return numTeams * numTeams * goalBytes;
+	}
+
+	public void writeRound(int round, LeagueState roundState) throws IOException {
+		if(outputStream == null)
+			throw new IllegalStateException("The run log has already been closed!");
+		if(roundState.getNumTeams() != numTeams)
+			throw new IllegalArgumentException("The round has " + roundState.getNumTeams() + " teams instead of " + numTeams + "!");
+
+		int changesLength = -1;
+		if(recordedRounds.size() % keyframeInterval != 0)
+			changesLength = roundState.writeChanges(previousState, changes, 0, matrix.length - 1);
+
+		outputStream.writeInt(round);
+		if(changesLength < 0) {
+			int index = 0;
+			for(int teamID = 1; teamID <= numTeams; teamID++)
+				for(int opponentID = 1; opponentID <= numTeams; opponentID++) {
+					int numGoals = roundState.getGoals(teamID, opponentID);
+					if(goalBytes == 2)
+						matrix[index++] = (byte) (numGoals >>> 8);
+					matrix[index++] = (byte) numGoals;
+				}
+			outputStream.writeByte(KEYFRAME_RECORD);
+			outputStream.writeInt(matrix.length);
+			outputStream.write(matrix);
+		}
+		else {
+			outputStream.writeByte(CHANGES_RECORD);
+			outputStream.writeInt(changesLength);
+			outputStream.write(changes, 0, changesLength);
+		}
+
+		recordedRounds.add(round);
+		recordOffsets.add(position);
+		position += RECORD_HEADER_SIZE + (changesLength < 0 ? matrix.length : changesLength);
+		previousState = new LeagueState(roundState);
+	}
+
+	/*
+	 * Length of the run log once the rounds written so far are flushed, not counting the index
+	 */
+	public long getLength() {
+		return position;
+	}
+
+	public void flush() throws IOException {
+		if(outputStream != null)
+			outputStream.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(outputStream == null)
+			return;
+
+		DataOutputStream stream = outputStream;
+		outputStream = null;
+		try {
+			stream.writeInt(recordedRounds.size());
+			for(int i = 0; i < recordedRounds.size(); i++) {
+				stream.writeInt(recordedRounds.get(i));
+				stream.writeLong(recordOffsets.get(i));
+			}
+		} finally {
+			stream.close();
+		}
+
+		try(RandomAccessFile runLogFile = new RandomAccessFile(path, "rw")) {
+			runLogFile.seek(INDEX_OFFSET_POSITION);
+			runLogFile.writeLong(position);
+		}
+	}
+}
@@ -28,7 +28,7 @@ public class Score implements Serializable {
 	public boolean equals(Object obj) {
 		if(this == obj)
 			return true;
-		if(obj == null || getClass() != obj.getClass())
+		if(!(obj instanceof Score))
 			return false;
 		
 		Score score = (Score) obj;
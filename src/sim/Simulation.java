@@ -0,0 +1,783 @@
+/*
+    Project: Retroactive Soccer
+    Course: COMS 4444 Programming & Problem Solving (Fall 2020)
+    Instructor: Prof. Kenneth Ross
+    URL: http://www.cs.columbia.edu/~kar/4444f20
+    Author: Aditya Sridhar
+    Simulator Version: 1.0
+*/
+
+package sim;
+
+import java.awt.Desktop;
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import jdk.jfr.EventType;
+
+import org.json.JSONException;
+
+public class Simulation {
+	
+	// Flight Recorder events are only created while they are recorded
+	private static final EventType ROUND_EVENT_TYPE = EventType.getEventType(RoundEvent.class);
+	private static final EventType REALLOCATION_REJECTED_EVENT_TYPE = EventType.getEventType(ReallocationRejectedEvent.class);
+
+	// Simulation structures
+	private final SimulationConfig config;
+	private final Log log;
+	private final PlayerLoader playerLoader;
+	private final ReallocationSupervisor reallocationSupervisor;
+	private GameHistory gameHistory;
+	private List<PlayerWrapper> playerWrappers;
+	private List<String> playerNames;
+	private Integer[][] randomGameGrid;
+	private Random random;
+	private boolean started = false;
+
+	// Points and rankings over all ranked rounds, and per-team reallocation buffers indexed by team ID
+	private LeagueStandings standings;
+	private GUIStateWriter guiStateWriter;
+	private RoundProfiler profiler;
+	private Game[] reallocatedGamesByID;
+	private CSVExporter csvExporter;
+	private RunLogWriter runLogWriter, historyWriter;
+	private int[] previousPlayerGoals, reallocatedPlayerGoals, previousOpponentGoals;
+	
+	// Simulation inputs
+	private final int seed;
+	private final int rounds;
+	private final double fpm;
+	private final boolean showGUI;
+	private final boolean continuousGUI;
+	private final boolean exportCSV;
+	private final boolean parallelRounds;
+	private final boolean virtualThreads;
+	private final boolean profiling;
+	private final boolean resume;
+	private final int checkpointInterval;
+	
+	// Defaults
+	private final boolean enablePrints;
+	private final long timeout;
+	private int currentRound = 0;
+	private String version = "1.0";
+	private final String staticsPath, csvPath, runLogPath, checkpointPath;
+    
+
+	/**
+	 * Simulation constructor
+	 *
+	 * @param config  simulation configuration (teams, rounds, seed, logging, export, and GUI settings)
+	 *
+	 */
+	public Simulation(SimulationConfig config) {
+		this(config, null);
+	}
+
+	/**
+	 * Simulation constructor
+	 *
+	 * @param config                simulation configuration (teams, rounds, seed, logging, export, and GUI settings)
+	 * @param reallocationExecutor  executor for player reallocations shared with other simulations, or null for a dedicated one
+	 *
+	 */
+	public Simulation(SimulationConfig config, ExecutorService reallocationExecutor) {
+		this.config = config;
+		this.seed = config.getSeed();
+		this.rounds = config.getRounds();
+		this.fpm = config.getFPM();
+		this.showGUI = config.isGUIEnabled();
+		this.continuousGUI = config.isContinuousGUI();
+		this.exportCSV = config.getCSVPath() != null;
+		this.parallelRounds = config.isParallelRounds();
+		this.virtualThreads = config.isVirtualThreads() && ReallocationSupervisor.isVirtualThreadSupported();
+		this.profiling = config.isProfiling();
+		this.enablePrints = config.isPrintingEnabled();
+		this.timeout = config.getTimeout();
+		this.staticsPath = config.getStaticsPath();
+		this.csvPath = config.getCSVPath();
+		this.runLogPath = config.getRunLogPath();
+		this.checkpointPath = config.getCheckpointPath();
+		this.checkpointInterval = config.getCheckpointInterval();
+		this.resume = config.isResume();
+
+		this.log = new Log();
+		if(config.getLogPath() != null) {
+			log.setLogFile(config.getLogPath());
+			log.assignLoggingStatus(true);
+		}
+		log.assignVerbosityStatus(config.isVerbose());
+
+		this.playerLoader = new PlayerLoader(config.getSourcePath());
+		if(config.isVirtualThreads() && !virtualThreads)
+			log.writeToLogFile("Virtual threads are not supported by this JVM, so platform threads are used instead!");
+		if(reallocationExecutor != null)
+			this.reallocationSupervisor = new ReallocationSupervisor(timeout, config.getMaxRunawayCalls(), reallocationExecutor, false);
+		else if(virtualThreads)
+			this.reallocationSupervisor = new ReallocationSupervisor(timeout, config.getMaxRunawayCalls(), ReallocationSupervisor.newVirtualThreadExecutor(), true);
+		else
+			this.reallocationSupervisor = new ReallocationSupervisor(timeout, config.getMaxRunawayCalls());
+		this.gameHistory = new GameHistory(config.getKeyframeInterval());
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Run all rounds of the league
+	 *
+	 * A simulation can only be run once, since players keep internal state between rounds.
+	 *
+	 * @return  final results of the league
+	 *
+	 */
+	public SimulationResult run() throws IOException, JSONException {
+		if(started)
+			throw new IllegalStateException("The simulation has already been run!");
+		started = true;
+
+		try {
+			loadPlayers();
+			runSimulation();
+		} finally {
+			reallocationSupervisor.shutdown();
+			try {
+				if(csvExporter != null)
+					csvExporter.close();
+				if(runLogWriter != null)
+					runLogWriter.close();
+				if(historyWriter != null)
+					historyWriter.close();
+			} finally {
+				log.closeLogFile();
+			}
+		}
+
+		List<String> teamNames = new ArrayList<>();
+		for(PlayerWrapper playerWrapper : playerWrappers)
+			teamNames.add(playerWrapper.getPlayerName());
+
+		return new SimulationResult(seed, rounds, teamNames, gameHistory.snapshot(),
+				gameHistory.getAllAverageRankingsMap().get(rounds),
+				gameHistory.getAllCumulativePointsMap().get(rounds),
+				reallocationSupervisor.getTimeoutCountsMap());
+	}
+
+	private void loadPlayers() {
+		playerWrappers = new ArrayList<>();
+		playerNames = new ArrayList<>();
+		Map<String, Integer> playerNameMap = new HashMap<>();
+		for(String playerName : config.getTeams()) {
+			if(!playerNameMap.containsKey(playerName))
+				playerNameMap.put(playerName, 0);
+			playerNameMap.put(playerName, playerNameMap.get(playerName) + 1);
+		}
+
+		// Groups are compiled in parallel up front, and then loaded in order
+		Set<String> groupNames = new LinkedHashSet<>();
+		for(String name : playerNameMap.keySet())
+			groupNames.add(cleanName(playerNameMap.get(name) == 1 ? name : name + "_1"));
+		playerLoader.compilePlayers(groupNames, log);
+
+		for(String name : playerNameMap.keySet()) {
+			int numTeams = playerNameMap.get(name);
+			if(numTeams == 1) {
+				playerNames.add(name);
+                try {
+					playerWrappers.add(loadPlayerWrapper(cleanName(name), name));
+				} catch (Exception e) {
+					log.writeToLogFile("Unable to load player: " + e.getMessage());
+				}
+			}
+			else {
+				log.writeToLogFile(numTeams + " teams have the name \"" + name + "\"!");
+				for(int i = 1; i <= numTeams; i++) {
+					String newName = name + "_" + i;
+					playerNames.add(newName);
+                    try {
+						playerWrappers.add(loadPlayerWrapper(cleanName(newName), newName));
+					} catch (Exception e) {
+						log.writeToLogFile("Unable to load player: " + e.getMessage());
+					}
+					log.writeToLogFile("Team \"" + name + "\" at index " + i + " is being renamed as \"" + newName + "\"!");
+				}
+			}			
+		}
+		
+		log.writeToLogFile("\n");
+        log.writeToLogFile("Project: Retroactive Soccer");
+        log.writeToLogFile("Simulator Version: " + version);
+        log.writeToLogFile("Players: " + playerNames.toString());
+        log.writeToLogFile("GUI: " + (showGUI ? "enabled" : "disabled"));
+        log.writeToLogFile("\n");
+	}
+
+	private void runSimulation() throws IOException, JSONException {
+		
+		HTTPServer server = null;
+		if(showGUI) {
+            server = new HTTPServer(staticsPath, log);
+            log.writeToLogFile("Hosting the HTTP Server on " + server.addr());
+            if(!Desktop.isDesktopSupported())
+                log.writeToLogFile("Desktop operations not supported!");
+            else if(!Desktop.getDesktop().isSupported(Desktop.Action.BROWSE))
+                log.writeToLogFile("Desktop browse operation not supported!");
+            else {
+                try {
+                    Desktop.getDesktop().browse(new URI("http://localhost:" + server.port()));
+                } catch(URISyntaxException e) {}
+            }
+        }
+		
+		standings = new LeagueStandings(playerWrappers.size());
+		reallocatedGamesByID = new Game[playerWrappers.size() + 1];
+		previousPlayerGoals = new int[playerWrappers.size() + 1];
+		reallocatedPlayerGoals = new int[playerWrappers.size() + 1];
+		previousOpponentGoals = new int[playerWrappers.size() + 1];
+
+		List<String> teamNames = new ArrayList<>();
+		for(PlayerWrapper playerWrapper : playerWrappers)
+			teamNames.add(playerWrapper.getPlayerName());
+		if(showGUI)
+			guiStateWriter = new GUIStateWriter(teamNames, rounds, fpm, continuousGUI);
+		profiler = new RoundProfiler(profiling, teamNames);
+
+		int firstRound = 0;
+		if(resume && new File(checkpointPath).exists())
+			firstRound = restoreCheckpoint(Checkpoint.read(checkpointPath), teamNames) + 1;
+		else if(resume)
+			log.writeToLogFile("No checkpoint found at \"" + checkpointPath + "\", so the simulation starts from the first round.");
+
+		// A new league overwrites the game history of earlier checkpoints, so they can no longer be resumed
+		if(firstRound == 0 && checkpointPath != null && checkpointInterval > 0) {
+			Files.deleteIfExists(Paths.get(checkpointPath));
+			historyWriter = new RunLogWriter(Checkpoint.getHistoryPath(checkpointPath), seed, rounds, teamNames, config.getKeyframeInterval());
+		}
+
+		if(exportCSV)
+			csvExporter = new CSVExporter(csvPath, teamNames);
+		if(runLogPath != null)
+			runLogWriter = new RunLogWriter(runLogPath, seed, rounds, teamNames, config.getKeyframeInterval());
+
+		// Restored rounds are exported again, so the exported files match those of an uninterrupted run
+		if(firstRound > 0 && (csvExporter != null || runLogWriter != null)) {
+			for(Map.Entry<Integer, LeagueState> roundStateEntry : gameHistory.getAllRoundStatesMap().entrySet()) {
+				if(csvExporter != null && roundStateEntry.getKey() > 0)
+					csvExporter.writeRound(roundStateEntry.getKey(), roundStateEntry.getValue());
+				if(runLogWriter != null)
+					runLogWriter.writeRound(roundStateEntry.getKey(), roundStateEntry.getValue());
+			}
+		}
+
+		ExecutorService reallocationExecutor = null;
+		if(parallelRounds)
+			reallocationExecutor = virtualThreads ? ReallocationSupervisor.newVirtualThreadExecutor() : Executors.newFixedThreadPool(playerWrappers.size());
+		// The reallocation threads are not daemon threads, so they are shut down whether or not the rounds complete
+		boolean completed = false;
+		try {
+			for(int i = firstRound; i <= rounds; i++) {
+				currentRound = i;
+				RoundEvent roundEvent = null;
+				if(ROUND_EVENT_TYPE.isEnabled()) {
+					roundEvent = new RoundEvent();
+					roundEvent.begin();
+				}
+				LeagueState roundState = new LeagueState(playerWrappers.size());
+			
+				if(currentRound == 0) {   // Round 0: simulator game randomization
+					generateRandomGameGrid();
+					for(PlayerWrapper playerWrapper : playerWrappers)
+						assignGamesToPlayer(playerWrapper, roundState);
+					gameHistory.addRoundState(currentRound, roundState);
+					if(runLogWriter != null)
+						runLogWriter.writeRound(currentRound, roundState);
+					if(historyWriter != null)
+						historyWriter.writeRound(currentRound, roundState);
+				}
+				else {   // Reallocation rounds
+					long phaseStartTime = profiler.startRound();
+					List<Integer> playerTeamIDs = new ArrayList<>();
+					for(PlayerWrapper playerWrapper : playerWrappers)
+						playerTeamIDs.add(playerWrapper.getPlayer().teamID);
+
+					int previousRound = currentRound - 1;
+					LeagueState previousRoundState = gameHistory.getAllRoundStatesMap().get(previousRound);
+					GameHistory gameHistorySnapshot = gameHistory.snapshot();
+					phaseStartTime = profiler.endPhase(RoundProfiler.Phase.SNAPSHOT, phaseStartTime);
+					List<Callable<List<Game>>> reallocationTasks = new ArrayList<>();
+
+					for(int j = 0; j < playerWrappers.size(); j++) {
+						PlayerWrapper playerWrapper = playerWrappers.get(j);
+						int playerTeamID = playerTeamIDs.get(j);
+						reallocationTasks.add(() -> reallocatePlayerGames(playerWrapper, playerTeamID, previousRound, gameHistorySnapshot));
+					}
+					List<List<Game>> allReallocatedPlayerGames = runReallocationTasks(reallocationExecutor, reallocationTasks);
+					phaseStartTime = profiler.endPhase(RoundProfiler.Phase.REALLOCATION, phaseStartTime);
+
+					for(int j = 0; j < playerWrappers.size(); j++) {
+						PlayerWrapper playerWrapper = playerWrappers.get(j);
+						int playerTeamID = playerTeamIDs.get(j);
+						List<Game> reallocatedPlayerGames = allReallocatedPlayerGames.get(j);
+
+						// Only the team's own goals are kept, so opponents' reallocations are reflected on both sides of each game
+						boolean validReallocation = mergeReallocatedGoals(playerTeamID, previousRoundState, reallocatedPlayerGames);
+						int[] validatedPlayerGoals = validReallocation ? reallocatedPlayerGoals : previousPlayerGoals;
+						for(int opponentID = 1; opponentID <= roundState.getNumTeams(); opponentID++)
+							if(opponentID != playerTeamID)
+								roundState.setGoals(playerTeamID, opponentID, validatedPlayerGoals[opponentID]);
+					
+						// Reset team ID, in case it was modified during reallocation
+						playerWrapper.getPlayer().teamID = (Integer) playerTeamID;
+
+						if(!validReallocation && REALLOCATION_REJECTED_EVENT_TYPE.isEnabled()) {
+							ReallocationRejectedEvent reallocationRejectedEvent = new ReallocationRejectedEvent();
+							reallocationRejectedEvent.team = playerWrapper.getPlayerName();
+							reallocationRejectedEvent.round = currentRound;
+							reallocationRejectedEvent.commit();
+						}
+					}
+					phaseStartTime = profiler.endPhase(RoundProfiler.Phase.VALIDATION, phaseStartTime);
+				
+					Map<Integer, PlayerPoints> roundPointsMap = standings.computeTeamPoints(roundState);
+					Map<Integer, PlayerPoints> roundCumulativePointsMap = standings.computeCumulativeTeamPoints(roundPointsMap);
+					phaseStartTime = profiler.endPhase(RoundProfiler.Phase.SCORING, phaseStartTime);
+					Map<Integer, Double> roundRankingsMap = standings.computeRoundRankings(roundPointsMap);
+					Map<Integer, Double> roundAverageRankingsMap = standings.computeAverageRankings(roundRankingsMap);
+					phaseStartTime = profiler.endPhase(RoundProfiler.Phase.RANKING, phaseStartTime);
+					updateGameHistory(currentRound, roundState, roundPointsMap, roundCumulativePointsMap, roundRankingsMap, roundAverageRankingsMap);	
+					phaseStartTime = profiler.endPhase(RoundProfiler.Phase.HISTORY, phaseStartTime);
+					if(csvExporter != null)
+						csvExporter.writeRound(currentRound, roundState);
+					if(runLogWriter != null)
+						runLogWriter.writeRound(currentRound, roundState);
+					if(historyWriter != null)
+						historyWriter.writeRound(currentRound, roundState);
+					phaseStartTime = profiler.endPhase(RoundProfiler.Phase.EXPORT, phaseStartTime);
+
+					// Round tables and GUI states are only built if they are logged or requested
+					log.writeLinesToVerboseLogFile(() -> getRoundResultsLines(roundState, roundPointsMap, roundCumulativePointsMap, roundRankingsMap, roundAverageRankingsMap));
+					phaseStartTime = profiler.endPhase(RoundProfiler.Phase.LOGGING, phaseStartTime);
+					if(showGUI) {
+						guiStateWriter.addRound(roundState);
+						server.publish(currentRound, guiStateWriter.write(currentRound,
+																		  roundState,
+																		  roundPointsMap,
+																		  roundCumulativePointsMap,
+																		  roundRankingsMap,
+																		  roundAverageRankingsMap));
+					}
+					phaseStartTime = profiler.endPhase(RoundProfiler.Phase.GUI, phaseStartTime);
+
+					if(checkpointPath != null && checkpointInterval > 0 && currentRound % checkpointInterval == 0 && currentRound < rounds)
+						writeCheckpoint(teamNames);
+					profiler.endPhase(RoundProfiler.Phase.CHECKPOINT, phaseStartTime);
+					profiler.endRound();
+				}
+
+				if(roundEvent != null && roundEvent.shouldCommit()) {
+					roundEvent.seed = seed;
+					roundEvent.round = currentRound;
+					roundEvent.numTeams = playerWrappers.size();
+					roundEvent.commit();
+				}
+			}
+			completed = true;
+		} finally {
+			if(reallocationExecutor != null) {
+				if(completed)
+					reallocationExecutor.shutdown();
+				else
+					reallocationExecutor.shutdownNow();
+			}
+		}
+
+		log.writeLinesToLogFile(this::getOverallResultsLines);
+				
+		if(csvExporter != null)
+			csvExporter.close();
+		if(runLogWriter != null)
+			runLogWriter.close();
+		if(historyWriter != null)
+			historyWriter.close();
+		if(server != null)
+			log.writeToLogFile("The GUI is still served on " + server.addr() + " until the simulator is stopped.");
+	}
+
+	private void writeCheckpoint(List<String> teamNames) {
+		try {
+			historyWriter.flush();
+			new Checkpoint(seed, rounds, currentRound, teamNames, historyWriter.getLength(), random, standings.getNumRankedRounds(),
+					standings.getRankSums(), standings.getCumulativePoints(), reallocationSupervisor.getTimeoutCountsMap(),
+					getPlayerStates()).write(checkpointPath);
+			log.writeToVerboseLogFile(() -> "Checkpoint of round " + currentRound + " written to \"" + checkpointPath + "\".");
+		} catch(IOException e) {
+			log.writeToLogFile("Unable to write the checkpoint of round " + currentRound + ": " + e);
+		}
+	}
+
+	/*
+	 * Serialized states of the players that implement Serializable, ordered by team ID; the other players are rebuilt by replay
+	 */
+	private List<byte[]> getPlayerStates() {
+		List<byte[]> playerStates = new ArrayList<>();
+		for(PlayerWrapper playerWrapper : playerWrappers) {
+			byte[] playerState = null;
+			if(playerWrapper.getPlayer() instanceof Serializable) {
+				try {
+					playerState = Checkpoint.serializePlayer(playerWrapper.getPlayer());
+				} catch(IOException | RuntimeException e) {
+					log.writeToVerboseLogFile("Unable to serialize team " + playerWrapper.getPlayerName() + ", so it is rebuilt by replay on resume: " + e);
+				}
+			}
+			playerStates.add(playerState);
+		}
+		return playerStates;
+	}
+
+	/*
+	 * Restores the state of the league from a checkpoint, and returns the last round completed before the checkpoint
+	 */
+	private int restoreCheckpoint(Checkpoint checkpoint, List<String> teamNames) throws IOException {
+		if(checkpoint.getSeed() != seed || checkpoint.getNumRounds() != rounds || !checkpoint.getTeamNames().equals(teamNames))
+			throw new IOException("The checkpoint \"" + checkpointPath + "\" belongs to a different league: seed " + checkpoint.getSeed() +
+					", " + checkpoint.getNumRounds() + " rounds, teams " + checkpoint.getTeamNames() + "!");
+
+		// Rounds written after the checkpoint are dropped from the game history, which is then appended to again
+		String historyPath = Checkpoint.getHistoryPath(checkpointPath);
+		RunLogWriter.truncate(historyPath, checkpoint.getHistoryLength());
+		try(RunLogReader historyReader = new RunLogReader(historyPath)) {
+			List<Integer> recordedRounds = historyReader.getRecordedRounds();
+			if(historyReader.getSeed() != seed || !historyReader.getTeamNames().equals(teamNames) ||
+			   recordedRounds.isEmpty() || recordedRounds.get(recordedRounds.size() - 1) != checkpoint.getRound())
+				throw new IOException("The game history \"" + historyPath + "\" does not match the checkpoint!");
+			gameHistory = historyReader.readGameHistory();
+			historyWriter = new RunLogWriter(historyPath, historyReader);
+		}
+
+		random = checkpoint.getRandom();
+		standings.restore(checkpoint.getNumRankedRounds(), checkpoint.getRankSums(), checkpoint.getCumulativePoints());
+		if(showGUI)
+			for(Map.Entry<Integer, LeagueState> roundStateEntry : gameHistory.getAllRoundStatesMap().entrySet())
+				if(roundStateEntry.getKey() > 0)
+					guiStateWriter.addRound(roundStateEntry.getValue());
+
+		List<PlayerWrapper> replayedPlayerWrappers = new ArrayList<>();
+		for(int i = 0; i < playerWrappers.size(); i++) {
+			PlayerWrapper playerWrapper = playerWrappers.get(i);
+			byte[] playerState = checkpoint.getPlayerStates().get(i);
+			if(playerState == null) {
+				replayedPlayerWrappers.add(playerWrapper);
+				continue;
+			}
+			try {
+				playerWrapper.setPlayer(Checkpoint.deserializePlayer(playerState, playerWrapper.getPlayer()));
+			} catch(ClassNotFoundException | ClassCastException e) {
+				throw new IOException("Unable to restore team " + playerWrapper.getPlayerName() + " from the checkpoint!", e);
+			}
+		}
+
+		// The calls that timed out or were refused cannot be replayed as they happened, so neither can the state they left
+		for(PlayerWrapper playerWrapper : replayedPlayerWrappers)
+			if(checkpoint.getTimeoutCountsMap().getOrDefault(playerWrapper.getPlayerName(), 0) > 0)
+				throw new IOException("Team " + playerWrapper.getPlayerName() + " timed out before the checkpoint and is not serializable, so it cannot be rebuilt!");
+		replayReallocations(replayedPlayerWrappers, checkpoint.getRound());
+		for(PlayerWrapper playerWrapper : replayedPlayerWrappers)
+			if(reallocationSupervisor.getNumTimeouts(playerWrapper.getPlayerName()) > 0)
+				throw new IOException("Team " + playerWrapper.getPlayerName() + " timed out while its reallocations were replayed, so it cannot be rebuilt!");
+
+		reallocationSupervisor.restoreTimeoutCounts(checkpoint.getTimeoutCountsMap());
+
+		log.writeToLogFile("Resuming from the checkpoint of round " + checkpoint.getRound() + ".");
+		return checkpoint.getRound();
+	}
+
+	/*
+	 * Rebuilds the state of players that are not serialized by calling the fresh players with the same inputs as in
+	 * the rounds before the checkpoint: the seed they are created with, and the game history up to each round.
+	 * The results of the replayed calls are discarded.
+	 */
+	private void replayReallocations(List<PlayerWrapper> replayedPlayerWrappers, int lastRound) {
+		if(replayedPlayerWrappers.isEmpty())
+			return;
+		log.writeToLogFile("Rebuilding the players that are not serializable by replaying their reallocations up to round " + lastRound + "...");
+
+		GameHistory replayedGameHistory = new GameHistory(config.getKeyframeInterval());
+		replayedGameHistory.addRoundState(0, gameHistory.getAllRoundStatesMap().get(0));
+		for(int round = 1; round <= lastRound; round++) {
+			int previousRound = round - 1;
+			GameHistory gameHistorySnapshot = replayedGameHistory.snapshot();
+			LeagueState previousRoundState = gameHistorySnapshot.getAllRoundStatesMap().get(previousRound);
+			for(PlayerWrapper playerWrapper : replayedPlayerWrappers) {
+				int playerTeamID = playerWrapper.getPlayer().teamID;
+				playerWrapper.reallocate(round, gameHistorySnapshot, previousRoundState.getTeamGames(playerTeamID), getOpponentGamesMap(previousRoundState, playerTeamID));
+				playerWrapper.getPlayer().teamID = (Integer) playerTeamID;
+			}
+
+			replayedGameHistory.addRoundState(round, gameHistory.getAllRoundStatesMap().get(round));
+			replayedGameHistory.addRoundPoints(round, gameHistory.getAllRoundPointsMap().get(round));
+			replayedGameHistory.addRoundCumulativePoints(round, gameHistory.getAllCumulativePointsMap().get(round));
+			replayedGameHistory.addRoundRankings(round, gameHistory.getAllRoundRankingsMap().get(round));
+			replayedGameHistory.addRoundAverageRankings(round, gameHistory.getAllAverageRankingsMap().get(round));
+		}
+	}
+
+	private List<String> getOverallResultsLines() {
+		List<String> lines = new ArrayList<>();
+		lines.add("All rounds and reallocations have completed!\n\n");
+		lines.add("-------------------------------------------------------------Overall Results-------------------------------------------------------------");
+		lines.add("Team\t\tFinal Rank\tTotal Points\tMatches\tWins\tLosses\tDraws\tGoals For\tGoals Against\tGoal Difference");
+
+		Map<Integer, Double> finalRankingsMap = orderRankings(gameHistory.getAllAverageRankingsMap().get(rounds));
+		Map<Integer, PlayerPoints> finalCumulativePointsMap = gameHistory.getAllCumulativePointsMap().get(rounds);
+		int numTeams = playerWrappers.size();
+		int[] numWinsArray = new int[numTeams + 1], numLossesArray = new int[numTeams + 1], numDrawsArray = new int[numTeams + 1];
+		int[] numGoalsForArray = new int[numTeams + 1], numGoalsAgainstArray = new int[numTeams + 1];
+
+		// Rounds are visited once each, in order, since the history decodes most rounds from the previous one
+		for(Map.Entry<Integer, LeagueState> roundStateEntry : gameHistory.getAllRoundStatesMap().entrySet()) {
+			int round = roundStateEntry.getKey();
+			if(round < 1 || round > rounds)
+				continue;
+			LeagueState leagueState = roundStateEntry.getValue();
+			for(int teamID = 1; teamID <= numTeams; teamID++) {
+				numWinsArray[teamID] += leagueState.getNumWins(teamID);
+				numLossesArray[teamID] += leagueState.getNumLosses(teamID);
+				numDrawsArray[teamID] += leagueState.getNumDraws(teamID);
+				numGoalsForArray[teamID] += leagueState.getNumGoalsFor(teamID);
+				numGoalsAgainstArray[teamID] += leagueState.getNumGoalsAgainst(teamID);
+			}
+		}
+		
+		DecimalFormat rankFormat = new DecimalFormat("###.####");
+		for(Integer teamID : finalRankingsMap.keySet()) {
+			int numWins = numWinsArray[teamID], numLosses = numLossesArray[teamID], numDraws = numDrawsArray[teamID];
+			int numGoalsFor = numGoalsForArray[teamID], numGoalsAgainst = numGoalsAgainstArray[teamID];
+			
+			for(PlayerWrapper playerWrapper : playerWrappers) {
+				String tabs = playerWrapper.getPlayerName().length() < 5 ? "\t\t" : "\t";
+				if(playerWrapper.getPlayer().teamID.equals(teamID)) {
+					lines.add(playerWrapper.getPlayerName() + tabs + 
+							  rankFormat.format(finalRankingsMap.get(teamID)) + "\t\t" +
+							  finalCumulativePointsMap.get(teamID) + "\t\t" +
+							  (numWins + numLosses + numDraws) + "\t" +
+							  numWins + "\t" +
+							  numLosses + "\t" + 
+							  numDraws + "\t" +
+							  numGoalsFor + "\t\t" +
+							  numGoalsAgainst + "\t\t" +
+							  (numGoalsFor - numGoalsAgainst)
+					);
+					break;
+				}
+			}
+		}
+
+		Map<String, Integer> timeoutCountsMap = reallocationSupervisor.getTimeoutCountsMap();
+		if(!timeoutCountsMap.isEmpty())
+			lines.add("Timed-out reallocations: " + timeoutCountsMap + " (" + reallocationSupervisor.getNumRunawayCalls() + " still running)");
+
+		lines.addAll(profiler.getReportLines());
+		lines.add("----------------------------------------------------------------End of Log---------------------------------------------------------------");
+		return lines;
+	}
+
+	private List<String> getRoundResultsLines(LeagueState roundState,
+											  Map<Integer, PlayerPoints> roundPointsMap,
+											  Map<Integer, PlayerPoints> roundCumulativePointsMap,
+											  Map<Integer, Double> roundRankingsMap,
+											  Map<Integer, Double> roundAverageRankingsMap) {
+		List<String> lines = new ArrayList<>();
+		lines.add("---------------------------------------------------------Round " + currentRound + " Results----------------------------------------------------------------");
+		lines.add("Team\t\tRound Rank\tAverage Rank\tRound Points\tCumulative Points\tMatches\tWins\tLosses\tDraws");
+
+		Map<Integer, Double> orderedRoundRankingsMap = orderRankings(roundRankingsMap);
+		DecimalFormat rankFormat = new DecimalFormat("###.####");
+		for(Integer teamID : orderedRoundRankingsMap.keySet()) {
+			int numWins = roundState.getNumWins(teamID);
+			int numLosses = roundState.getNumLosses(teamID);
+			int numDraws = roundState.getNumDraws(teamID);
+
+			String playerName = playerWrappers.get(teamID - 1).getPlayerName();
+			String tabs = playerName.length() < 5 ? "\t\t" : "\t";
+			lines.add(playerName + tabs + 
+					  rankFormat.format(orderedRoundRankingsMap.get(teamID)) + "\t\t" +
+					  rankFormat.format(roundAverageRankingsMap.get(teamID)) + "\t\t" +
+					  roundPointsMap.get(teamID) + "\t\t" +
+					  roundCumulativePointsMap.get(teamID) + "\t\t\t" +
+					  (numWins + numLosses + numDraws) + "\t" +
+					  numWins + "\t" +
+					  numLosses + "\t" + 
+					  numDraws + "\t"
+			);
+		}
+
+		lines.add("---------------------------------------------------------End of Round " + currentRound + "-----------------------------------------------------------------");
+		return lines;
+	}
+
+	/*
+	 * Rankings ordered by ascending rank, with ties in the iteration order of the given map
+	 */
+	static Map<Integer, Double> orderRankings(Map<Integer, Double> rankingsMap) {
+		return rankingsMap.entrySet()
+				  .stream()
+				  .sorted(Map.Entry.comparingByValue())
+				  .collect(Collectors.toMap(
+				    Map.Entry::getKey, 
+				    Map.Entry::getValue,
+				    (oldRank, newRank) -> oldRank, LinkedHashMap::new));
+	}
+
+	private List<Game> reallocatePlayerGames(PlayerWrapper playerWrapper, int playerTeamID, int previousRound, GameHistory gameHistorySnapshot) {
+		LeagueState previousRoundState = gameHistorySnapshot.getAllRoundStatesMap().get(previousRound);
+		List<Game> playerGames = previousRoundState.getTeamGames(playerTeamID);
+		Map<Integer, List<Game>> opponentGamesMap = getOpponentGamesMap(previousRoundState, playerTeamID);
+
+		long startTime = profiler.startReallocation();
+		List<Game> reallocatedPlayerGames = playerWrapper.reallocate(previousRound + 1, gameHistorySnapshot, playerGames, opponentGamesMap);
+		profiler.endReallocation(playerTeamID, startTime);
+		return reallocatedPlayerGames;
+	}
+
+	private Map<Integer, List<Game>> getOpponentGamesMap(LeagueState previousRoundState, int playerTeamID) {
+		Map<Integer, List<Game>> opponentGamesMap = new HashMap<>();
+		for(int teamID = 1; teamID <= previousRoundState.getNumTeams(); teamID++)
+			if(teamID != playerTeamID)
+				opponentGamesMap.put(teamID, previousRoundState.getTeamGames(teamID));
+		return opponentGamesMap;
+	}
+
+	/*
+	 * Fill the goal buffers of a team, indexed by opponent ID, with its previous goals and its merged reallocated goals,
+	 * where the first reallocated game against each opponent replaces the previous one, and validate the reallocation
+	 */
+	private boolean mergeReallocatedGoals(int playerTeamID, LeagueState previousRoundState, List<Game> reallocatedPlayerGames) {
+		for(Game reallocatedPlayerGame : reallocatedPlayerGames) {
+			Integer gameID = reallocatedPlayerGame.getID();
+			if(gameID != null && gameID >= 1 && gameID < reallocatedGamesByID.length && reallocatedGamesByID[gameID] == null)
+				reallocatedGamesByID[gameID] = reallocatedPlayerGame;
+		}
+
+		boolean validGoals = true;
+		for(int opponentID = 1; opponentID <= previousRoundState.getNumTeams(); opponentID++) {
+			Game reallocatedPlayerGame = reallocatedGamesByID[opponentID];
+			reallocatedGamesByID[opponentID] = null;
+			if(opponentID == playerTeamID) {
+				previousPlayerGoals[opponentID] = reallocatedPlayerGoals[opponentID] = previousOpponentGoals[opponentID] = 0;
+				continue;
+			}
+
+			previousPlayerGoals[opponentID] = previousRoundState.getGoals(playerTeamID, opponentID);
+			previousOpponentGoals[opponentID] = previousRoundState.getGoals(opponentID, playerTeamID);
+			reallocatedPlayerGoals[opponentID] = previousPlayerGoals[opponentID];
+			if(reallocatedPlayerGame == null)
+				continue;
+
+			// Constraint 2 is checked here, since the goal buffers only hold the previous opponent goals
+			Integer numPlayerGoals = reallocatedPlayerGame.getNumPlayerGoals();
+			Integer numOpponentGoals = reallocatedPlayerGame.getNumOpponentGoals();
+			if(numPlayerGoals == null || numOpponentGoals == null || numOpponentGoals != previousOpponentGoals[opponentID])
+				validGoals = false;
+			else
+				reallocatedPlayerGoals[opponentID] = numPlayerGoals;
+		}
+
+		return validGoals && Player.checkConstraintsSatisfied(previousPlayerGoals, reallocatedPlayerGoals, previousOpponentGoals, 1, previousRoundState.getNumTeams() + 1);
+	}
+
+	private List<List<Game>> runReallocationTasks(ExecutorService reallocationExecutor, List<Callable<List<Game>>> reallocationTasks) {
+		List<List<Game>> allReallocatedPlayerGames = new ArrayList<>();
+		try {
+			if(reallocationExecutor == null) {
+				for(Callable<List<Game>> reallocationTask : reallocationTasks)
+					allReallocatedPlayerGames.add(reallocationTask.call());
+			}
+			else {
+				for(Future<List<Game>> reallocationFuture : reallocationExecutor.invokeAll(reallocationTasks))
+					allReallocatedPlayerGames.add(reallocationFuture.get());
+			}
+		} catch(ExecutionException e) {
+			throw new IllegalStateException("Reallocation failed unexpectedly!", e.getCause());
+		} catch(Exception e) {
+			throw new IllegalStateException("Reallocation failed unexpectedly!", e);
+		}
+		return allReallocatedPlayerGames;
+	}
+
+	private void updateGameHistory(Integer round,
+										  LeagueState roundState,
+										  Map<Integer, PlayerPoints> roundPointsMap,
+										  Map<Integer, PlayerPoints> roundCumulativePointsMap,
+										  Map<Integer, Double> roundRankingsMap,
+										  Map<Integer, Double> roundAverageRankingsMap) {
+		gameHistory.addRoundState(round, roundState);
+		gameHistory.addRoundPoints(round, roundPointsMap);
+		gameHistory.addRoundCumulativePoints(round, roundCumulativePointsMap);
+		gameHistory.addRoundRankings(round, roundRankingsMap);
+		gameHistory.addRoundAverageRankings(round, roundAverageRankingsMap);
+	}
+	
+	static String cleanName(String playerName) {
+		String cleanedPlayerName = " ";
+		if(playerName.contains("_")) {
+			Integer index = playerName.lastIndexOf("_");
+			cleanedPlayerName = playerName.substring(0, index);
+		}
+		else
+			return playerName;
+
+		return cleanedPlayerName;
+	}
+	
+	private void generateRandomGameGrid() {
+		List<Integer> goalPossibilities = new ArrayList<>();
+		randomGameGrid = new Integer[playerWrappers.size()][playerWrappers.size()];
+		for(int i = 0; i < randomGameGrid.length; i++) {
+			for(int j = 0; j <= Math.max(playerWrappers.size() - 2, Game.getMaxGoalThreshold()); j++)
+				goalPossibilities.add(j);
+			for(int j = 0; j < randomGameGrid[i].length; j++) {
+				if(i == j)
+					randomGameGrid[i][j] = 0;
+				else {
+					int index = random.nextInt(goalPossibilities.size());
+					randomGameGrid[i][j] = goalPossibilities.get(index);
+					goalPossibilities.remove(index);
+				}
+			}
+			goalPossibilities.clear();
+		}		
+	}
+	
+	private void assignGamesToPlayer(PlayerWrapper playerWrapper, LeagueState roundState) {
+		int playerTeamID = playerWrapper.getPlayer().teamID;
+		int indexOfPlayerWrapper = playerWrappers.indexOf(playerWrapper);
+		for(int i = 0; i < randomGameGrid[indexOfPlayerWrapper].length; i++) {
+			if(i == indexOfPlayerWrapper)
+				continue;
+
+			int gameID = i + 1;
+			roundState.setGoals(playerTeamID, gameID, randomGameGrid[indexOfPlayerWrapper][i]);
+		}
+	}
+	
+	private PlayerWrapper loadPlayerWrapper(String playerName, String modifiedPlayerName) throws Exception {
+		log.writeToLogFile("Loading team " + playerName + "...");
+
+		int teamID = playerWrappers.size() + 1;
+		Player player = playerLoader.loadPlayer(playerName, teamID, rounds, seed, new SimPrinter(enablePrints), log);
+        if(player == null)
+            throw new IOException("Cannot load team " + playerName + "!");
+
+        return new PlayerWrapper(player, modifiedPlayerName, reallocationSupervisor, log);
+    }
+}
@@ -0,0 +1,243 @@
+package sim;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SimulationConfig {
+
+	// Simulation inputs
+	private List<String> teams = new ArrayList<>();
+	private int seed = 10;
+	private int rounds = 10;
+	private double fpm = 15;
+	private boolean showGUI = false;
+	private boolean continuousGUI = true;
+	private boolean parallelRounds = false;
+	private boolean virtualThreads = false;
+	private boolean profiling = false;
+	private boolean verbose = false;
+	private boolean resume = false;
+	private String logPath, csvPath, runLogPath, checkpointPath;
+
+	// Defaults
+	private boolean enablePrints = false;
+	private long timeout = 1000;
+	private int maxRunawayCalls = ReallocationSupervisor.DEFAULT_MAX_RUNAWAY_CALLS;
+	private int keyframeInterval = GameHistory.DEFAULT_KEYFRAME_INTERVAL;
+	private int checkpointInterval = 100;
+	private String projectPath, sourcePath, staticsPath;
+
+	public SimulationConfig() {
+		String absolutePath = new File(".").getAbsolutePath();
+		setProjectPath(absolutePath.substring(0, absolutePath.indexOf("coms4444-soccer") + "coms4444-soccer".length()));
+	}
+
+	public List<String> getTeams() {
+		return teams;
+	}
+
+	public void setTeams(List<String> teams) {
+		this.teams = new ArrayList<>(teams);
+	}
+
+	public void addTeam(String team) {
+		teams.add(team);
+	}
+
+	public int getSeed() {
+		return seed;
+	}
+
+	public void setSeed(int seed) {
+		this.seed = seed;
+	}
+
+	public int getRounds() {
+		return rounds;
+	}
+
+	public void setRounds(int rounds) {
+		this.rounds = rounds;
+	}
+
+	public double getFPM() {
+		return fpm;
+	}
+
+	public void setFPM(double fpm) {
+		this.fpm = fpm;
+	}
+
+	public boolean isGUIEnabled() {
+		return showGUI;
+	}
+
+	public void setGUIEnabled(boolean showGUI) {
+		this.showGUI = showGUI;
+	}
+
+	public boolean isContinuousGUI() {
+		return continuousGUI;
+	}
+
+	public void setContinuousGUI(boolean continuousGUI) {
+		this.continuousGUI = continuousGUI;
+	}
+
+	public boolean isParallelRounds() {
+		return parallelRounds;
+	}
+
+	public void setParallelRounds(boolean parallelRounds) {
+		this.parallelRounds = parallelRounds;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public boolean isProfiling() {
+		return profiling;
+	}
+
+	public void setProfiling(boolean profiling) {
+		this.profiling = profiling;
+	}
+
+	public boolean isVerbose() {
+		return verbose;
+	}
+
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	public String getLogPath() {
+		return logPath;
+	}
+
+	public void setLogPath(String logPath) {
+		this.logPath = logPath;
+	}
+
+	public String getCSVPath() {
+		return csvPath;
+	}
+
+	public void setCSVPath(String csvPath) {
+		this.csvPath = csvPath;
+	}
+
+	public String getRunLogPath() {
+		return runLogPath;
+	}
+
+	public void setRunLogPath(String runLogPath) {
+		this.runLogPath = runLogPath;
+	}
+
+	public String getCheckpointPath() {
+		return checkpointPath;
+	}
+
+	public void setCheckpointPath(String checkpointPath) {
+		this.checkpointPath = checkpointPath;
+	}
+
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	public void setCheckpointInterval(int checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	public boolean isResume() {
+		return resume;
+	}
+
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+	public boolean isPrintingEnabled() {
+		return enablePrints;
+	}
+
+	public void setPrintingEnabled(boolean enablePrints) {
+		this.enablePrints = enablePrints;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public String getProjectPath() {
+		return projectPath;
+	}
+
+	public void setProjectPath(String projectPath) {
+		this.projectPath = projectPath;
+		this.sourcePath = projectPath + File.separator + "src";
+		this.staticsPath = projectPath + File.separator + "statics";
+	}
+
+	public int getMaxRunawayCalls() {
+		return maxRunawayCalls;
+	}
+
+	public void setMaxRunawayCalls(int maxRunawayCalls) {
+		this.maxRunawayCalls = maxRunawayCalls;
+	}
+
+	public int getKeyframeInterval() {
+		return keyframeInterval;
+	}
+
+	public void setKeyframeInterval(int keyframeInterval) {
+		this.keyframeInterval = keyframeInterval;
+	}
+
+	public String getSourcePath() {
+		return sourcePath;
+	}
+
+	public String getStaticsPath() {
+		return staticsPath;
+	}
+
+	public SimulationConfig copy() {
+		SimulationConfig config = new SimulationConfig();
+		config.teams = new ArrayList<>(teams);
+		config.seed = seed;
+		config.rounds = rounds;
+		config.fpm = fpm;
+		config.showGUI = showGUI;
+		config.continuousGUI = continuousGUI;
+		config.parallelRounds = parallelRounds;
+		config.virtualThreads = virtualThreads;
+		config.profiling = profiling;
+		config.verbose = verbose;
+		config.logPath = logPath;
+		config.csvPath = csvPath;
+		config.runLogPath = runLogPath;
+		config.checkpointPath = checkpointPath;
+		config.checkpointInterval = checkpointInterval;
+		config.resume = resume;
+		config.enablePrints = enablePrints;
+		config.timeout = timeout;
+		config.maxRunawayCalls = maxRunawayCalls;
+		config.keyframeInterval = keyframeInterval;
+		config.setProjectPath(projectPath);
+		return config;
+	}
+}
@@ -0,0 +1,73 @@
+package sim;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class SimulationResult {
+
+	private int seed, rounds;
+	private List<String> teamNames;
+	private GameHistory gameHistory;
+	private Map<Integer, Double> finalRankingsMap;
+	private Map<Integer, PlayerPoints> finalCumulativePointsMap;
+	private Map<String, Integer> timeoutCountsMap;
+
+	public SimulationResult(int seed, int rounds, List<String> teamNames, GameHistory gameHistory,
+			Map<Integer, Double> finalRankingsMap, Map<Integer, PlayerPoints> finalCumulativePointsMap,
+			Map<String, Integer> timeoutCountsMap) {
+		this.seed = seed;
+		this.rounds = rounds;
+		this.teamNames = Collections.unmodifiableList(teamNames);
+		this.gameHistory = gameHistory;
+		this.finalRankingsMap = finalRankingsMap;
+		this.finalCumulativePointsMap = finalCumulativePointsMap;
+		this.timeoutCountsMap = Collections.unmodifiableMap(timeoutCountsMap);
+	}
+
+	public int getSeed() {
+		return seed;
+	}
+
+	public int getNumRounds() {
+		return rounds;
+	}
+
+	/*
+	 * Team names ordered by team ID, i.e., the name of team ID i is at index i - 1
+	 */
+	public List<String> getTeamNames() {
+		return teamNames;
+	}
+
+	public String getTeamName(Integer teamID) {
+		return teamNames.get(teamID - 1);
+	}
+
+	public GameHistory getGameHistory() {
+		return gameHistory;
+	}
+
+	public Map<Integer, Double> getFinalRankingsMap() {
+		return finalRankingsMap;
+	}
+
+	public Double getFinalRanking(Integer teamID) {
+		return finalRankingsMap.get(teamID);
+	}
+
+	public Map<Integer, PlayerPoints> getFinalCumulativePointsMap() {
+		return finalCumulativePointsMap;
+	}
+
+	/*
+	 * Number of reallocations of each team that timed out or were refused, keyed by team name; teams without timeouts are omitted
+	 */
+	public Map<String, Integer> getTimeoutCountsMap() {
+		return timeoutCountsMap;
+	}
+
+	public int getNumTimeouts(String teamName) {
+		return timeoutCountsMap.getOrDefault(teamName, 0);
+	}
+}
@@ -0,0 +1,200 @@
+package sim;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Tournament {
+
+	private SimulationConfig baseConfig;
+	private int firstSeed, lastSeed, numThreads;
+	private String archivePath;
+
+	/**
+	 * Tournament constructor
+	 *
+	 * @param baseConfig  configuration shared by every league (teams, rounds, timeout); the seed is overridden per league
+	 * @param firstSeed   first seed to run, inclusive
+	 * @param lastSeed    last seed to run, inclusive
+	 * @param numThreads  number of leagues to run concurrently
+	 *
+	 */
+	public Tournament(SimulationConfig baseConfig, int firstSeed, int lastSeed, int numThreads) {
+		if(lastSeed < firstSeed)
+			throw new IllegalArgumentException("The last seed must not be smaller than the first seed!");
+		if(numThreads < 1)
+			throw new IllegalArgumentException("At least 1 thread is required for the tournament!");
+		this.baseConfig = baseConfig;
+		this.firstSeed = firstSeed;
+		this.lastSeed = lastSeed;
+		this.numThreads = numThreads;
+	}
+
+	/*
+	 * Directory receiving the binary run log of each league, named after its seed; no run logs are written if null
+	 */
+	public void setArchivePath(String archivePath) {
+		this.archivePath = archivePath;
+	}
+
+	/**
+	 * Run one league per seed and aggregate the final ranks of each team
+	 *
+	 * Leagues are spread over a work-stealing pool, and each league's final ranks are printed as soon as it completes.
+	 *
+	 * @param out  stream for per-league results and the summary table
+	 * @return     final rank statistics for each team, keyed by team name
+	 *
+	 */
+	public Map<String, RankStatistics> run(PrintStream out) throws InterruptedException {
+		ExecutorService executor = Executors.newWorkStealingPool(numThreads);
+		CompletionService<SimulationResult> completionService = new ExecutorCompletionService<>(executor);
+
+		// Player reallocations of all leagues share one executor, so threads are not kept per team per league
+		ExecutorService reallocationExecutor = baseConfig.isVirtualThreads() && ReallocationSupervisor.isVirtualThreadSupported() ?
+				ReallocationSupervisor.newVirtualThreadExecutor() : ReallocationSupervisor.newPlatformThreadExecutor();
+
+		if(archivePath != null)
+			new File(archivePath).mkdirs();
+
+		int numLeagues = lastSeed - firstSeed + 1;
+		for(int seed = firstSeed; seed <= lastSeed; seed++) {
+			SimulationConfig config = baseConfig.copy();
+			config.setSeed(seed);
+			config.setLogPath(null);
+			config.setCSVPath(null);
+			config.setRunLogPath(archivePath == null ? null : new File(archivePath, "seed-" + seed + ".run").getPath());
+			config.setGUIEnabled(false);
+			completionService.submit(() -> new Simulation(config, reallocationExecutor).run());
+		}
+
+		Map<String, RankStatistics> rankStatisticsMap = new LinkedHashMap<>();
+		Map<String, Integer> timeoutCountsMap = new LinkedHashMap<>();
+		DecimalFormat rankFormat = new DecimalFormat("###.####");
+		long startTime = System.currentTimeMillis();
+		try {
+			for(int i = 1; i <= numLeagues; i++) {
+				Future<SimulationResult> resultFuture = completionService.take();
+				SimulationResult result;
+				try {
+					result = resultFuture.get();
+				} catch(ExecutionException e) {
+					out.println("League " + i + "/" + numLeagues + " failed: " + e.getCause());
+					continue;
+				}
+
+				StringBuilder line = new StringBuilder("Seed " + result.getSeed() + " (" + i + "/" + numLeagues + "):");
+				for(int teamID = 1; teamID <= result.getTeamNames().size(); teamID++) {
+					String teamName = result.getTeamName(teamID);
+					double finalRank = result.getFinalRanking(teamID);
+					if(!rankStatisticsMap.containsKey(teamName))
+						rankStatisticsMap.put(teamName, new RankStatistics());
+					rankStatisticsMap.get(teamName).addRank(finalRank);
+					timeoutCountsMap.merge(teamName, result.getNumTimeouts(teamName), Integer::sum);
+					line.append(" " + teamName + "=" + rankFormat.format(finalRank));
+				}
+				out.println(line);
+			}
+		} finally {
+			executor.shutdownNow();
+			reallocationExecutor.shutdownNow();
+		}
+
+		double elapsedSeconds = (System.currentTimeMillis() - startTime) / 1000.0;
+		printSummary(out, rankStatisticsMap, timeoutCountsMap, numLeagues, elapsedSeconds);
+		return rankStatisticsMap;
+	}
+
+	private static void printSummary(PrintStream out, Map<String, RankStatistics> rankStatisticsMap, Map<String, Integer> timeoutCountsMap,
+			int numLeagues, double elapsedSeconds) {
+		List<String> teamNames = new ArrayList<>(rankStatisticsMap.keySet());
+		teamNames.sort((teamName1, teamName2) ->
+				Double.compare(rankStatisticsMap.get(teamName1).getMean(), rankStatisticsMap.get(teamName2).getMean()));
+
+		DecimalFormat rankFormat = new DecimalFormat("###.####");
+		out.println("-------------------------------------------------------------Tournament Results-------------------------------------------------------------");
+		out.println("Leagues: " + numLeagues + ", elapsed: " + rankFormat.format(elapsedSeconds) + " s, throughput: " +
+				rankFormat.format(numLeagues / Math.max(elapsedSeconds, 1e-3)) + " leagues/s");
+		out.println("Team\t\tLeagues\tMean Rank\tMedian Rank\tStd Dev\t\t95% CI\t\t\tTimeouts");
+		for(String teamName : teamNames) {
+			RankStatistics rankStatistics = rankStatisticsMap.get(teamName);
+			String tabs = teamName.length() < 8 ? "\t\t" : "\t";
+			out.println(teamName + tabs +
+					rankStatistics.getNumRanks() + "\t" +
+					rankFormat.format(rankStatistics.getMean()) + "\t\t" +
+					rankFormat.format(rankStatistics.getMedian()) + "\t\t" +
+					rankFormat.format(rankStatistics.getStandardDeviation()) + "\t\t" +
+					"[" + rankFormat.format(rankStatistics.getConfidenceIntervalLowerBound()) + ", " +
+					rankFormat.format(rankStatistics.getConfidenceIntervalUpperBound()) + "]\t\t" +
+					timeoutCountsMap.get(teamName));
+		}
+		out.println("--------------------------------------------------------------------------------------------------------------------------------------------");
+	}
+
+	private static Tournament parseCommandLineArguments(String[] args) {
+		SimulationConfig config = new SimulationConfig();
+		int firstSeed = 1, lastSeed = 10;
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		String archivePath = null;
+
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-t") || args[i].equals("--teams")) {
+				while(i + 1 < args.length && args[i + 1].charAt(0) != '-') {
+					i++;
+					config.addTeam(args[i]);
+				}
+
+				if(config.getTeams().size() < 2)
+					throw new IllegalArgumentException("You entered an invalid number of teams. At least 2 teams are required for the league.");
+			}
+			else if(args[i].equals("-s") || args[i].equals("--seeds")) {
+				if(i + 2 >= args.length)
+					throw new IllegalArgumentException("The seed range must be specified as FIRST LAST!");
+				firstSeed = Integer.parseInt(args[++i]);
+				lastSeed = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("-r") || args[i].equals("--rounds")) {
+				i++;
+				if(i == args.length)
+					throw new IllegalArgumentException("The total number of rounds is not specified!");
+				config.setRounds(Integer.parseInt(args[i]));
+			}
+			else if(args[i].equals("-n") || args[i].equals("--threads")) {
+				i++;
+				if(i == args.length)
+					throw new IllegalArgumentException("The number of threads is missing!");
+				numThreads = Integer.parseInt(args[i]);
+			}
+			else if(args[i].equals("-p") || args[i].equals("--parallel"))
+				config.setParallelRounds(true);
+			else if(args[i].equals("--virtual-threads"))
+				config.setVirtualThreads(true);
+			else if(args[i].equals("-a") || args[i].equals("--archive")) {
+				i++;
+				if(i == args.length)
+					throw new IllegalArgumentException("The archive directory is missing!");
+				archivePath = args[i];
+			}
+			else
+				throw new IllegalArgumentException("Unknown argument \"" + args[i] + "\"!");
+		}
+
+		Tournament tournament = new Tournament(config, firstSeed, lastSeed, numThreads);
+		tournament.setArchivePath(archivePath);
+		return tournament;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		parseCommandLineArguments(args).run(System.out);
+	}
+}
@@ -0,0 +1,323 @@
+package sim;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Long-lived local server that runs leagues on request in a warm JVM.
+ *
+ * Compiled players, loaded classes, and JIT-compiled code are kept between runs, so a short league costs
+ * milliseconds instead of a JVM launch. Leagues are queued on a fixed pool of simulation threads, whose
+ * player reallocations share one executor, as in a tournament. The server only listens on the loopback
+ * interface.
+ *
+ *   POST /run     body {"teams": [...], "seed": 10, "rounds": 100, "timeout": 1000, "parallel": false}, where
+ *                 all but the teams are optional; answers with the final results of the league once it has run
+ *   GET  /status  numbers of queued, running, completed, and failed leagues
+ *
+ */
+public class TournamentDaemon {
+
+	public static final int DEFAULT_PORT = 4444;
+
+	private final SimulationConfig baseConfig;
+	private final int numThreads, maxQueuedLeagues;
+	private final ExecutorService simulationExecutor, reallocationExecutor;
+	private final AtomicInteger numQueuedLeagues = new AtomicInteger(), numRunningLeagues = new AtomicInteger();
+	private final AtomicLong numCompletedLeagues = new AtomicLong(), numFailedLeagues = new AtomicLong();
+	private HttpServer server;
+
+	/**
+	 * TournamentDaemon constructor
+	 *
+	 * @param baseConfig        configuration shared by every league (rounds, timeout); teams, seed, and rounds are overridden per request
+	 * @param numThreads        number of leagues to run concurrently
+	 * @param maxQueuedLeagues  number of leagues that can wait for a thread before requests are refused
+	 *
+	 */
+	public TournamentDaemon(SimulationConfig baseConfig, int numThreads, int maxQueuedLeagues) {
+		if(numThreads < 1)
+			throw new IllegalArgumentException("At least 1 thread is required for the daemon!");
+		this.baseConfig = baseConfig;
+		this.numThreads = numThreads;
+		this.maxQueuedLeagues = maxQueuedLeagues;
+		this.simulationExecutor = Executors.newFixedThreadPool(numThreads);
+		this.reallocationExecutor = baseConfig.isVirtualThreads() && ReallocationSupervisor.isVirtualThreadSupported() ?
+				ReallocationSupervisor.newVirtualThreadExecutor() : ReallocationSupervisor.newPlatformThreadExecutor();
+	}
+
+	/**
+	 * Run a league of the given teams, so players are compiled and the simulator's code is compiled by the JIT before requests arrive
+	 *
+	 * @param teams   warm-up lineup
+	 * @param rounds  number of rounds of the warm-up league
+	 * @return        elapsed time in milliseconds
+	 *
+	 */
+	public long warmUp(List<String> teams, int rounds) throws InterruptedException, ExecutionException {
+		long startTime = System.nanoTime();
+		submitLeague(teams, 0, rounds, baseConfig.getTimeout(), baseConfig.isParallelRounds()).get();
+		return (System.nanoTime() - startTime) / 1000000;
+	}
+
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/run", this::handleRun);
+		server.createContext("/status", this::handleStatus);
+
+		// Requests wait for their leagues on handler threads, so the handlers must not be bounded by the simulation threads
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public void stop() {
+		if(server != null)
+			server.stop(0);
+		simulationExecutor.shutdownNow();
+		reallocationExecutor.shutdownNow();
+	}
+
+	private Future<SimulationResult> submitLeague(List<String> teams, int seed, int rounds, long timeout, boolean parallelRounds) {
+		SimulationConfig config = baseConfig.copy();
+		config.setTeams(teams);
+		config.setSeed(seed);
+		config.setRounds(rounds);
+		config.setTimeout(timeout);
+		config.setParallelRounds(parallelRounds);
+		config.setLogPath(null);
+		config.setCSVPath(null);
+		config.setRunLogPath(null);
+		config.setCheckpointPath(null);
+		config.setGUIEnabled(false);
+
+		numQueuedLeagues.incrementAndGet();
+		return simulationExecutor.submit(() -> {
+			numQueuedLeagues.decrementAndGet();
+			numRunningLeagues.incrementAndGet();
+			try {
+				SimulationResult result = new Simulation(config, reallocationExecutor).run();
+				numCompletedLeagues.incrementAndGet();
+				return result;
+			} catch(Exception e) {
+				numFailedLeagues.incrementAndGet();
+				throw e;
+			} finally {
+				numRunningLeagues.decrementAndGet();
+			}
+		});
+	}
+
+	private void handleRun(HttpExchange exchange) throws IOException {
+		try {
+			if(!exchange.getRequestMethod().equals("POST")) {
+				reply(exchange, 405, error("Leagues are run with POST requests."));
+				return;
+			}
+
+			List<String> teams = new ArrayList<>();
+			int seed, rounds;
+			long timeout;
+			boolean parallelRounds;
+			try {
+				JSONObject request = new JSONObject(new String(readBody(exchange.getRequestBody()), StandardCharsets.UTF_8));
+				JSONArray teamsArray = request.getJSONArray("teams");
+				for(int i = 0; i < teamsArray.length(); i++)
+					teams.add(teamsArray.getString(i));
+				seed = request.optInt("seed", baseConfig.getSeed());
+				rounds = request.optInt("rounds", baseConfig.getRounds());
+				timeout = request.optLong("timeout", baseConfig.getTimeout());
+				parallelRounds = request.optBoolean("parallel", baseConfig.isParallelRounds());
+			} catch(JSONException e) {
+				reply(exchange, 400, error("Invalid run request: " + e.getMessage()));
+				return;
+			}
+			if(teams.size() < 2 || rounds < 1 || timeout < 1) {
+				reply(exchange, 400, error("A league needs at least 2 teams, 1 round, and a positive timeout."));
+				return;
+			}
+			List<String> failedTeams = getFailedTeams(teams);
+			if(!failedTeams.isEmpty()) {
+				reply(exchange, 400, error("Unable to load teams " + failedTeams + "."));
+				return;
+			}
+			if(numQueuedLeagues.get() >= maxQueuedLeagues) {
+				reply(exchange, 503, error("Too many leagues are queued; retry later."));
+				return;
+			}
+
+			long startTime = System.nanoTime();
+			SimulationResult result;
+			try {
+				result = submitLeague(teams, seed, rounds, timeout, parallelRounds).get();
+			} catch(ExecutionException e) {
+				reply(exchange, 500, error("The league failed: " + e.getCause()));
+				return;
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				reply(exchange, 503, error("The daemon is shutting down."));
+				return;
+			}
+			reply(exchange, 200, toJSON(result, (System.nanoTime() - startTime) / 1000000));
+		} catch(JSONException e) {
+			reply(exchange, 500, "{\"error\":\"Unable to encode the results.\"}");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/*
+	 * Requested teams whose groups cannot be compiled or loaded, which the simulation would otherwise leave out of the league
+	 */
+	private List<String> getFailedTeams(List<String> teams) {
+		PlayerLoader playerLoader = new PlayerLoader(baseConfig.getSourcePath());
+		Log log = new Log();
+		List<String> failedTeams = new ArrayList<>();
+		for(String team : teams) {
+			if(failedTeams.contains(team))
+				continue;
+			try {
+				if(!PlayerLoader.PLAYER_NAME_PATTERN.matcher(team).matches())
+					throw new IOException("Invalid team name " + team + "!");
+				playerLoader.loadPlayerClass(Simulation.cleanName(team), log);
+			} catch(Exception e) {
+				failedTeams.add(team);
+			}
+		}
+		return failedTeams;
+	}
+
+	private void handleStatus(HttpExchange exchange) throws IOException {
+		try {
+			JSONObject status = new JSONObject();
+			status.put("threads", numThreads);
+			status.put("queued", numQueuedLeagues.get());
+			status.put("running", numRunningLeagues.get());
+			status.put("completed", numCompletedLeagues.get());
+			status.put("failed", numFailedLeagues.get());
+			reply(exchange, 200, status.toString());
+		} catch(JSONException e) {
+			reply(exchange, 500, "{\"error\":\"Unable to encode the status.\"}");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/*
+	 * Final results of a league, with teams ordered by team ID
+	 */
+	private static String toJSON(SimulationResult result, long elapsedMillis) throws JSONException {
+		JSONObject resultObj = new JSONObject();
+		resultObj.put("seed", result.getSeed());
+		resultObj.put("rounds", result.getNumRounds());
+		resultObj.put("elapsedMillis", elapsedMillis);
+
+		JSONArray teamsArray = new JSONArray();
+		for(int teamID = 1; teamID <= result.getTeamNames().size(); teamID++) {
+			String teamName = result.getTeamName(teamID);
+			JSONObject teamObj = new JSONObject();
+			teamObj.put("team", teamName);
+			teamObj.put("finalRank", result.getFinalRanking(teamID));
+			teamObj.put("points", result.getFinalCumulativePointsMap().get(teamID).getTotalPoints());
+			teamObj.put("timeouts", result.getNumTimeouts(teamName));
+			teamsArray.put(teamObj);
+		}
+		resultObj.put("teams", teamsArray);
+		return resultObj.toString();
+	}
+
+	private static String error(String message) throws JSONException {
+		return new JSONObject().put("error", message).toString();
+	}
+
+	private static byte[] readBody(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1 << 12];
+		int length;
+		while((length = inputStream.read(buffer)) >= 0)
+			body.write(buffer, 0, length);
+		return body.toByteArray();
+	}
+
+	private static void reply(HttpExchange exchange, int status, String content) throws IOException {
+		byte[] body = content.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try(OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(body);
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		SimulationConfig config = new SimulationConfig();
+		List<String> warmUpTeams = new ArrayList<>();
+		int port = DEFAULT_PORT, warmUpRounds = 100, maxQueuedLeagues = 1000;
+		int numThreads = Runtime.getRuntime().availableProcessors();
+
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-t") || args[i].equals("--teams")) {
+				while(i + 1 < args.length && args[i + 1].charAt(0) != '-') {
+					i++;
+					warmUpTeams.add(args[i]);
+				}
+			}
+			else if(args[i].equals("-w") || args[i].equals("--warm-up-rounds")) {
+				i++;
+				if(i == args.length)
+					throw new IllegalArgumentException("The number of warm-up rounds is missing!");
+				warmUpRounds = Integer.parseInt(args[i]);
+			}
+			else if(args[i].equals("--port")) {
+				i++;
+				if(i == args.length)
+					throw new IllegalArgumentException("The port is missing!");
+				port = Integer.parseInt(args[i]);
+			}
+			else if(args[i].equals("-n") || args[i].equals("--threads")) {
+				i++;
+				if(i == args.length)
+					throw new IllegalArgumentException("The number of threads is missing!");
+				numThreads = Integer.parseInt(args[i]);
+			}
+			else if(args[i].equals("-q") || args[i].equals("--max-queued")) {
+				i++;
+				if(i == args.length)
+					throw new IllegalArgumentException("The maximum number of queued leagues is missing!");
+				maxQueuedLeagues = Integer.parseInt(args[i]);
+			}
+			else if(args[i].equals("--virtual-threads"))
+				config.setVirtualThreads(true);
+			else
+				throw new IllegalArgumentException("Unknown argument \"" + args[i] + "\"!");
+		}
+
+		TournamentDaemon daemon = new TournamentDaemon(config, numThreads, maxQueuedLeagues);
+		if(warmUpTeams.size() >= 2 && warmUpRounds > 0)
+			System.out.println("Warm-up league of " + warmUpTeams + " completed in " + daemon.warmUp(warmUpTeams, warmUpRounds) + " ms.");
+		daemon.start(port);
+		System.out.println("Tournament daemon listening on http://localhost:" + daemon.getPort() + " with " + numThreads + " simulation threads.");
+	}
+}
@@ -0,0 +1,80 @@
+package test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sim.ReallocationSupervisor;
+
+/*
+ * Checks that the supervisor bounds the number of timed-out calls that keep running.
+ *
+ * Usage: java -cp . test.ReallocationSupervisorTest
+ *
+ */
+public class ReallocationSupervisorTest {
+
+	private static final long TIMEOUT = 50;
+	private static final int MAX_RUNAWAY_CALLS = 2;
+	private static final int NUM_PLAYERS = 5;
+
+	public static void main(String[] args) throws Exception {
+		testRunawayCallsAreCapped();
+		System.out.println("All tests passed.");
+	}
+
+	/*
+	 * More players than the cap hang in turn, ignoring interrupts
+	 */
+	private static void testRunawayCallsAreCapped() throws Exception {
+		ReallocationSupervisor supervisor = new ReallocationSupervisor(TIMEOUT, MAX_RUNAWAY_CALLS);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger numStartedCalls = new AtomicInteger();
+		try {
+			for(int i = 1; i <= NUM_PLAYERS; i++) {
+				String playerName = "hanging_" + i;
+				try {
+					supervisor.call(playerName, () -> {
+						numStartedCalls.incrementAndGet();
+						while(release.getCount() > 0) {
+							try {
+								release.await();
+							} catch(InterruptedException e) {}
+						}
+						return null;
+					});
+					fail("The call of " + playerName + " returned while hanging");
+				} catch(TimeoutException e) {
+					check(i <= MAX_RUNAWAY_CALLS, "The call of " + playerName + " ran past the cap");
+				} catch(RejectedExecutionException e) {
+					check(i > MAX_RUNAWAY_CALLS, "The call of " + playerName + " was refused below the cap");
+				}
+				check(supervisor.getNumTimeouts(playerName) == 1, "The call of " + playerName + " was not counted as a timeout");
+			}
+			check(numStartedCalls.get() == MAX_RUNAWAY_CALLS, numStartedCalls.get() + " hanging calls were started");
+			check(supervisor.getNumRunawayCalls() == MAX_RUNAWAY_CALLS, supervisor.getNumRunawayCalls() + " runaway calls are running");
+
+			// Once the runaway calls return, players are called again
+			release.countDown();
+			long deadline = System.currentTimeMillis() + 10000;
+			while(supervisor.getNumRunawayCalls() > 0 && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			check(supervisor.getNumRunawayCalls() == 0, "The runaway calls were not released");
+			check(supervisor.call("hanging_" + NUM_PLAYERS, () -> "done").equals("done"), "The refused player was not called again");
+		} finally {
+			release.countDown();
+			supervisor.shutdown();
+		}
+		System.out.println("testRunawayCallsAreCapped passed.");
+	}
+
+	private static void check(boolean condition, String message) {
+		if(!condition)
+			fail(message);
+	}
+
+	private static void fail(String message) {
+		throw new AssertionError(message + "!");
+	}
+}